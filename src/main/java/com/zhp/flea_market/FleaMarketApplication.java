@@ -1,9 +1,13 @@
 package com.zhp.flea_market;
 
+import cn.hutool.extra.spring.EnableSpringUtil;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableSpringUtil
+@EnableScheduling
 public class FleaMarketApplication {
 
     public static void main(String[] args) {
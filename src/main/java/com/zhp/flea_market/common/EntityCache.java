@@ -0,0 +1,225 @@
+package com.zhp.flea_market.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.BeanUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按主键缓存的实体缓存
+ * 容量和写入后过期时间双重淘汰；读取时返回副本，调用方修改返回对象不会污染缓存；
+ * 写操作先立即失效，存在事务时在事务结束（提交或回滚）后再失效一次，
+ * 避免事务期间被其他线程读回旧值或本事务未提交的数据；
+ * 批量加载期间发生过失效的主键不写入缓存，避免失效前读到的旧数据在失效后被写回
+ *
+ * @param <T> 实体类型
+ */
+public class EntityCache<T> {
+
+    private static final int GENERATION_STRIPES = 64;
+
+    private final String name;
+
+    private final boolean enabled;
+
+    private final Supplier<T> factory;
+
+    private final Cache<Long, T> cache;
+
+    /**
+     * 按主键分段的失效代数，批量加载前后代数不变才写入缓存
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public EntityCache(String name, boolean enabled, long maxSize, long ttlSeconds, Supplier<T> factory) {
+        this.name = name;
+        this.enabled = enabled;
+        this.factory = factory;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 按主键读取，未命中时调用 loader 加载，加载结果为null时不缓存
+     *
+     * @param id 主键
+     * @param loader 数据库加载函数
+     * @return 实体副本
+     */
+    public T get(Serializable id, Function<Long, T> loader) {
+        Long key = toKey(id);
+        if (key == null) {
+            return null;
+        }
+        if (!enabled) {
+            return loader.apply(key);
+        }
+        return copy(cache.get(key, loader));
+    }
+
+    /**
+     * 按主键批量读取，只有未命中的主键才交给 loader 用一次 IN 查询加载；
+     * 加载期间被失效的主键只返回加载结果，不写入缓存
+     *
+     * @param ids 主键集合
+     * @param loader 批量加载函数
+     * @param idGetter 实体主键获取函数
+     * @return 实体副本列表，不存在的主键不会出现在结果中
+     */
+    public List<T> getAll(Collection<? extends Serializable> ids, Function<Set<Long>, List<T>> loader,
+                          Function<T, Long> idGetter) {
+        Set<Long> keys = new LinkedHashSet<>();
+        if (ids != null) {
+            for (Serializable id : ids) {
+                Long key = toKey(id);
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+        }
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (!enabled) {
+            return loader.apply(keys);
+        }
+
+        Map<Long, T> found = new LinkedHashMap<>(cache.getAllPresent(keys));
+        Set<Long> missing = new LinkedHashSet<>(keys);
+        missing.removeAll(found.keySet());
+        if (!missing.isEmpty()) {
+            Map<Long, Long> startGenerations = new HashMap<>();
+            for (Long key : missing) {
+                startGenerations.put(key, generations.get(stripe(key)));
+            }
+            for (T entity : loader.apply(missing)) {
+                Long key = idGetter.apply(entity);
+                found.put(key, entity);
+                Long startGeneration = startGenerations.get(key);
+                if (startGeneration == null) {
+                    continue;
+                }
+                // 在 compute 内比较代数，与 invalidate 的先递增代数再删除互斥：
+                // 代数已变化时保留现有值；写入后才发生的失效会再将其删除
+                cache.asMap().compute(key, (k, existing) ->
+                        generations.get(stripe(k)) == startGeneration ? entity : existing);
+            }
+        }
+
+        List<T> result = new ArrayList<>(found.size());
+        for (Long key : keys) {
+            T entity = found.get(key);
+            if (entity != null) {
+                result.add(copy(entity));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 失效指定主键
+     *
+     * @param id 主键
+     */
+    public void invalidate(Serializable id) {
+        Long key = toKey(id);
+        if (key == null) {
+            return;
+        }
+        evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    /**
+     * 获取命中统计
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadCount", stats.loadCount());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    /**
+     * 先递增代数再删除，进行中的批量加载据此放弃写入
+     */
+    private void evict(Long key) {
+        generations.incrementAndGet(stripe(key));
+        cache.invalidate(key);
+    }
+
+    private static int stripe(Long key) {
+        return (int) (key ^ (key >>> 32)) & (GENERATION_STRIPES - 1);
+    }
+
+    private T copy(T entity) {
+        if (entity == null) {
+            return null;
+        }
+        T copy = factory.get();
+        BeanUtils.copyProperties(entity, copy);
+        return copy;
+    }
+
+    private static Long toKey(Serializable id) {
+        if (id == null) {
+            return null;
+        }
+        if (id instanceof Long) {
+            return (Long) id;
+        }
+        try {
+            return Long.valueOf(String.valueOf(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
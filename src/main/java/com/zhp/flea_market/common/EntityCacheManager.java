@@ -0,0 +1,59 @@
+package com.zhp.flea_market.common;
+
+import com.zhp.flea_market.config.EntityCacheProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 实体缓存管理器
+ * 按配置创建各实体的缓存并统一汇总命中统计
+ */
+@Component
+public class EntityCacheManager {
+
+    @Autowired
+    private EntityCacheProperties properties;
+
+    private final Map<String, EntityCache<?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 创建实体缓存
+     *
+     * @param name 缓存名称，对应配置 entity-cache.specs 下的键
+     * @param factory 实体构造函数，用于复制缓存对象
+     * @param <T> 实体类型
+     * @return 实体缓存
+     */
+    public <T> EntityCache<T> create(String name, Supplier<T> factory) {
+        EntityCacheProperties.Spec spec = properties.getSpecs().get(name);
+        long maxSize = spec != null && spec.getMaxSize() != null ? spec.getMaxSize() : properties.getDefaultMaxSize();
+        long ttlSeconds = spec != null && spec.getTtlSeconds() != null ? spec.getTtlSeconds() : properties.getDefaultTtlSeconds();
+
+        EntityCache<T> cache = new EntityCache<>(name, properties.isEnabled(), maxSize, ttlSeconds, factory);
+        caches.put(name, cache);
+        return cache;
+    }
+
+    /**
+     * 获取所有缓存的命中统计
+     *
+     * @return 缓存名称 -> 统计信息
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> result.put(name, cache.getStats()));
+        return result;
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public void invalidateAll() {
+        caches.values().forEach(EntityCache::invalidateAll);
+    }
+}
@@ -13,6 +13,7 @@ public enum ErrorCode {
     FORBIDDEN_ERROR(405, "禁止访问"),
     SYSTEM_ERROR(500, "系统内部异常"),
     OPERATION_ERROR(501, "操作失败"),
+    CONFLICT_ERROR(409, "资源冲突，请刷新后重试"),
     WORD_FORBIDDEN_ERROR(422, "包含违禁词，多次违禁将封禁账号"),
     USER_BALANCE_NOT_ENOUGH(402, "用户余额不足，无法调用 AI");
 
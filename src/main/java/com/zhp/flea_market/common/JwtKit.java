@@ -1,34 +1,119 @@
 package com.zhp.flea_market.common;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 
 /**
  *
  * JWT工具类
+ * 密钥和解析器在启动时构建一次；令牌头部携带 kid 以支持密钥轮换；
+ * 已验签的令牌按 SHA-256 摘要缓存，同一令牌的重复请求跳过验签
  *
  */
+@Slf4j
 @Component
 public class JwtKit {
     @Resource
     private JwtProperties jwtProperties;
-    
-    private SecretKey getSecretKey() {
-        String secret = jwtProperties.getSecret();
-        if (secret.length() < 32) {
-            return Jwts.SIG.HS256.key().build();
+
+    /**
+     * 当前签名密钥
+     */
+    private SecretKey signingKey;
+
+    /**
+     * 可用于验签的密钥：kid -> 密钥
+     */
+    private Map<String, SecretKey> verificationKeys;
+
+    /**
+     * 线程安全的令牌解析器
+     */
+    private JwtParser parser;
+
+    /**
+     * 已验签令牌缓存：令牌摘要 -> 载荷
+     */
+    private Cache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = deriveKey(jwtProperties.getSecret());
+
+        Map<String, SecretKey> keys = new HashMap<>();
+        if (StringUtils.isNotBlank(jwtProperties.getRetiredKeys())) {
+            for (String entry : jwtProperties.getRetiredKeys().split(";")) {
+                int index = entry.indexOf('=');
+                if (index <= 0 || index == entry.length() - 1) {
+                    continue;
+                }
+                keys.put(entry.substring(0, index).trim(), deriveKey(entry.substring(index + 1).trim()));
+            }
+        }
+        keys.put(jwtProperties.getKeyId(), signingKey);
+        verificationKeys = Collections.unmodifiableMap(keys);
+
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        // 轮换前签发的令牌没有 kid，使用当前密钥校验
+                        String keyId = header.getKeyId();
+                        return keyId == null ? signingKey : verificationKeys.get(keyId);
+                    }
+                })
+                .build();
+
+        if (jwtProperties.getVerifiedCacheSize() > 0) {
+            verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(jwtProperties.getVerifiedCacheSize())
+                    .expireAfterWrite(Duration.ofSeconds(jwtProperties.getVerifiedCacheSeconds()))
+                    .build();
+        }
+    }
+
+    /**
+     * 由配置的密钥派生HMAC密钥
+     * 不足32字节的密钥先做SHA-256扩展，保证各节点、各次调用得到同一把密钥
+     */
+    private SecretKey deriveKey(String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            log.warn("JWT密钥长度不足32字节，已使用SHA-256派生密钥，请尽快更换为更长的密钥");
+            bytes = sha256(bytes);
+        }
+        return Keys.hmacShaKeyFor(bytes);
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -44,10 +129,14 @@ public class JwtKit {
             com.zhp.flea_market.model.entity.User userEntity = (com.zhp.flea_market.model.entity.User) user;
             claims.put("username", userEntity.getUserAccount());
             claims.put("userId", userEntity.getId());
+            claims.put("userName", userEntity.getUserName());
+            claims.put("userRole", userEntity.getUserRole());
         } else if (user instanceof com.zhp.flea_market.model.vo.LoginUserVO) {
             com.zhp.flea_market.model.vo.LoginUserVO loginUserVO = (com.zhp.flea_market.model.vo.LoginUserVO) user;
             claims.put("username", loginUserVO.getUserAccount());
             claims.put("userId", loginUserVO.getId());
+            claims.put("userName", loginUserVO.getUserName());
+            claims.put("userRole", loginUserVO.getUserRole());
         } else {
             claims.put("username", user.toString());
         }
@@ -55,12 +144,11 @@ public class JwtKit {
         claims.put("createdate", new Date());
         claims.put("id", System.currentTimeMillis());
         
-        SecretKey key = getSecretKey();
-        
         return Jwts.builder()
+                .header().keyId(jwtProperties.getKeyId()).and()
                 .claims(claims)
                 .expiration(new Date(System.currentTimeMillis() + jwtProperties.getExpiration()))
-                .signWith(key)
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -69,6 +157,7 @@ public class JwtKit {
 
     public JwtKit(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
+        init();
     }
 
     /**
@@ -82,10 +171,23 @@ public class JwtKit {
             throw new IllegalArgumentException("Token不能为空");
         }
         token = token.trim();
-        SecretKey key = getSecretKey();
-        JwtParser parser = Jwts.parser()
-                .verifyWith(key)
-                .build();
-        return parser.parseSignedClaims(token).getPayload();
+        if (verifiedTokens == null) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+
+        String tokenHash = HexFormat.of().formatHex(sha256(token.getBytes(StandardCharsets.UTF_8)));
+        Claims claims = verifiedTokens.getIfPresent(tokenHash);
+        if (claims != null) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null || expiration.after(new Date())) {
+                return claims;
+            }
+            verifiedTokens.invalidate(tokenHash);
+        }
+
+        // 验签失败或已过期时直接抛出异常，不会进入缓存
+        claims = parser.parseSignedClaims(token).getPayload();
+        verifiedTokens.put(tokenHash, claims);
+        return claims;
     }
 }
@@ -26,6 +26,42 @@ public class JwtProperties {
     @Value("${jwt.expiration}")
     private long expiration;
 
+    /**
+     * 是否直接信任令牌中的用户ID和角色声明（配合吊销名单，不再逐请求查询用户表）
+     */
+    @Value("${jwt.trustClaims:true}")
+    private boolean trustClaims = true;
+
+    /**
+     * 吊销名单全量刷新间隔（毫秒）
+     */
+    @Value("${jwt.revocationRefreshMs:30000}")
+    private long revocationRefreshMs = 30000;
+
+    /**
+     * 当前签名密钥ID，写入令牌头部 kid
+     */
+    @Value("${jwt.keyId:k1}")
+    private String keyId = "k1";
+
+    /**
+     * 已轮换下线但仍需校验的旧密钥，格式 kid=secret;kid=secret
+     */
+    @Value("${jwt.retiredKeys:}")
+    private String retiredKeys;
+
+    /**
+     * 已验签令牌缓存的最大条数，0表示关闭
+     */
+    @Value("${jwt.verifiedCacheSize:10000}")
+    private long verifiedCacheSize = 10000;
+
+    /**
+     * 已验签令牌缓存的最长保留时间（秒），不会超过令牌本身的过期时间
+     */
+    @Value("${jwt.verifiedCacheSeconds:300}")
+    private long verifiedCacheSeconds = 300;
+
     public JwtProperties() {
     }
 
@@ -0,0 +1,210 @@
+package com.zhp.flea_market.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zhp.flea_market.model.dto.response.MonthlyStatisticsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 统计报表结果缓存
+ * 以 (报表, 年, 月) 为键：已结束的月份长期缓存并以 JSON 持久化到磁盘，重启后仍然有效；
+ * 当前月份及之后的月份只做短时缓存。统计汇总发生变化时按涉及的月份失效
+ */
+@Slf4j
+@Component
+public class StatisticsResultCache {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    /**
+     * 已结束月份的结果
+     */
+    private final Map<String, MonthlyStatisticsResponse> closedMonths = new ConcurrentHashMap<>();
+
+    /**
+     * 当前月份的结果
+     */
+    private final Cache<String, MonthlyStatisticsResponse> openMonths;
+
+    private final AtomicLong closedHits = new AtomicLong();
+
+    private final AtomicLong diskHits = new AtomicLong();
+
+    private final AtomicLong openHits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 失效代数，计算期间发生过失效时不写入结果，避免缓存计算前的旧数据
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public StatisticsResultCache(@Value("${statistics.cache.enabled:true}") boolean enabled,
+                                 @Value("${statistics.cache.dir:./data/statistics-cache}") String dir,
+                                 @Value("${statistics.cache.current-month-ttl-seconds:60}") long currentMonthTtlSeconds) {
+        this.enabled = enabled;
+        this.directory = Paths.get(dir);
+        this.openMonths = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofSeconds(currentMonthTtlSeconds))
+                .build();
+    }
+
+    /**
+     * 读取报表结果，未命中时计算并缓存
+     *
+     * @param report 报表名称
+     * @param year 年份
+     * @param month 月份
+     * @param loader 报表计算函数
+     * @return 报表结果
+     */
+    public MonthlyStatisticsResponse get(String report, int year, int month, Supplier<MonthlyStatisticsResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        YearMonth yearMonth = YearMonth.of(year, month);
+        String key = key(report, yearMonth);
+
+        if (!yearMonth.isBefore(YearMonth.now())) {
+            MonthlyStatisticsResponse cached = openMonths.getIfPresent(key);
+            if (cached != null) {
+                openHits.incrementAndGet();
+                return cached;
+            }
+            misses.incrementAndGet();
+            long startGeneration = generation.get();
+            MonthlyStatisticsResponse result = loader.get();
+            if (generation.get() == startGeneration) {
+                openMonths.put(key, result);
+            }
+            return result;
+        }
+
+        MonthlyStatisticsResponse cached = closedMonths.get(key);
+        if (cached != null) {
+            closedHits.incrementAndGet();
+            return cached;
+        }
+        cached = readFromDisk(key);
+        if (cached != null) {
+            diskHits.incrementAndGet();
+            closedMonths.put(key, cached);
+            return cached;
+        }
+        misses.incrementAndGet();
+        long startGeneration = generation.get();
+        MonthlyStatisticsResponse result = loader.get();
+        if (generation.get() == startGeneration) {
+            closedMonths.put(key, result);
+            writeToDisk(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * 失效某个月份的全部报表
+     *
+     * @param yearMonth 月份
+     */
+    public void invalidateMonth(YearMonth yearMonth) {
+        generation.incrementAndGet();
+        String suffix = "-" + yearMonth;
+        openMonths.asMap().keySet().removeIf(key -> key.endsWith(suffix));
+        closedMonths.keySet().removeIf(key -> key.endsWith(suffix));
+        deleteFromDisk("*" + suffix + ".json");
+    }
+
+    /**
+     * 清空全部报表缓存
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        openMonths.invalidateAll();
+        closedMonths.clear();
+        deleteFromDisk("*.json");
+    }
+
+    /**
+     * 获取命中统计
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = closedHits.get() + diskHits.get() + openHits.get();
+        long total = hits + misses.get();
+        stats.put("enabled", enabled);
+        stats.put("closedMonthSize", closedMonths.size());
+        stats.put("currentMonthSize", openMonths.estimatedSize());
+        stats.put("closedMonthHitCount", closedHits.get());
+        stats.put("diskHitCount", diskHits.get());
+        stats.put("currentMonthHitCount", openHits.get());
+        stats.put("missCount", misses.get());
+        stats.put("hitRate", total == 0 ? 1.0 : (double) hits / total);
+        return stats;
+    }
+
+    private static String key(String report, YearMonth yearMonth) {
+        return report + "-" + yearMonth;
+    }
+
+    private MonthlyStatisticsResponse readFromDisk(String key) {
+        Path file = directory.resolve(key + ".json");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), MonthlyStatisticsResponse.class);
+        } catch (IOException e) {
+            log.warn("读取统计缓存文件失败: {}", file, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, MonthlyStatisticsResponse result) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), result);
+            Files.move(temp, directory.resolve(key + ".json"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入统计缓存文件失败: {}", key, e);
+        }
+    }
+
+    private void deleteFromDisk(String glob) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("删除统计缓存文件失败: {}", glob, e);
+        }
+    }
+}
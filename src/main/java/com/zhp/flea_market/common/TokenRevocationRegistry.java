@@ -0,0 +1,156 @@
+package com.zhp.flea_market.common;
+
+import com.zhp.flea_market.constant.UserConstant;
+import com.zhp.flea_market.mapper.UserMapper;
+import com.zhp.flea_market.model.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌吊销名单
+ * 在内存中维护已封禁/禁用/删除的用户ID和管理员用户ID两个小集合，定时全量刷新，
+ * 本节点修改用户状态或角色时在事务提交后立即刷新该用户；
+ * 认证时据此校验令牌中的用户ID和角色声明，不再逐请求查询用户表
+ */
+@Slf4j
+@Component
+public class TokenRevocationRegistry {
+
+    @Resource
+    private UserMapper userMapper;
+
+    /**
+     * 令牌应被拒绝的用户ID
+     */
+    private volatile Set<Long> revokedUserIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 管理员用户ID
+     */
+    private volatile Set<Long> adminUserIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否已成功加载过一次
+     */
+    private volatile boolean ready = false;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * 定时全量刷新，覆盖其他节点或直接改库产生的变更
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocationRefreshMs:30000}", initialDelayString = "${jwt.revocationRefreshMs:30000}")
+    public void reload() {
+        try {
+            Set<Long> revoked = ConcurrentHashMap.newKeySet();
+            revoked.addAll(userMapper.selectRevokedUserIds());
+            Set<Long> admins = ConcurrentHashMap.newKeySet();
+            admins.addAll(userMapper.selectAdminUserIds());
+
+            revokedUserIds = revoked;
+            adminUserIds = admins;
+            ready = true;
+            log.debug("令牌吊销名单已刷新，吊销用户数: {}，管理员数: {}", revoked.size(), admins.size());
+        } catch (Exception e) {
+            log.error("刷新令牌吊销名单失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 用户状态、角色变更或删除后刷新该用户，存在事务时在事务提交后执行
+     *
+     * @param userId 用户ID
+     */
+    public void refreshUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doRefreshUser(userId);
+                }
+            });
+        } else {
+            doRefreshUser(userId);
+        }
+    }
+
+    /**
+     * 根据名单解析令牌持有者当前的有效角色
+     * 名单尚未加载成功时无法判断吊销状态，返回null（拒绝），调用方应先检查 {@link #isReady()} 并回退为查库
+     *
+     * @param userId 令牌中的用户ID
+     * @param claimedRole 令牌中的角色
+     * @return 有效角色，令牌已被吊销或名单未加载时返回null
+     */
+    public String resolveRole(Long userId, String claimedRole) {
+        if (userId == null || !ready) {
+            return null;
+        }
+        if (revokedUserIds.contains(userId)) {
+            return null;
+        }
+        if (adminUserIds.contains(userId)) {
+            return UserConstant.ADMIN_ROLE;
+        }
+        // 令牌签发后被取消管理员角色，降级为普通用户
+        if (UserConstant.ADMIN_ROLE.equals(claimedRole)) {
+            return UserConstant.DEFAULT_ROLE;
+        }
+        return claimedRole;
+    }
+
+    /**
+     * 名单是否已加载
+     *
+     * @return 是否可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 根据用户记录判断令牌是否应被拒绝（已删除、已禁用或已封禁）
+     *
+     * @param user 用户记录
+     * @return 是否应被拒绝
+     */
+    public static boolean isRevoked(User user) {
+        return user == null
+                || Integer.valueOf(1).equals(user.getDeleted())
+                || Integer.valueOf(3).equals(user.getUserStatus())
+                || UserConstant.BAN_ROLE.equals(user.getUserRole());
+    }
+
+    private void doRefreshUser(Long userId) {
+        try {
+            User user = userMapper.selectAuthStateById(userId);
+            boolean revoked = isRevoked(user);
+            if (revoked) {
+                revokedUserIds.add(userId);
+            } else {
+                revokedUserIds.remove(userId);
+            }
+            if (!revoked && UserConstant.ADMIN_ROLE.equals(user.getUserRole())) {
+                adminUserIds.add(userId);
+            } else {
+                adminUserIds.remove(userId);
+            }
+        } catch (Exception e) {
+            log.error("刷新用户[{}]认证状态失败: {}", userId, e.getMessage());
+        }
+    }
+}
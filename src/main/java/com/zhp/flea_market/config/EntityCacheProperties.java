@@ -0,0 +1,54 @@
+package com.zhp.flea_market.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 热点实体缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "entity-cache")
+@Data
+public class EntityCacheProperties {
+
+    /**
+     * 是否启用实体缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 未单独配置时的最大缓存条数
+     */
+    private long defaultMaxSize = 10000;
+
+    /**
+     * 未单独配置时的写入后过期时间（秒）
+     */
+    private long defaultTtlSeconds = 300;
+
+    /**
+     * 按实体名单独配置的缓存规格，如 user、product、category
+     */
+    private Map<String, Spec> specs = new HashMap<>();
+
+    /**
+     * 单个实体缓存规格
+     */
+    @Data
+    public static class Spec {
+
+        /**
+         * 最大缓存条数
+         */
+        private Long maxSize;
+
+        /**
+         * 写入后过期时间（秒）
+         */
+        private Long ttlSeconds;
+    }
+}
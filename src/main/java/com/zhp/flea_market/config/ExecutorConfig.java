@@ -0,0 +1,62 @@
+package com.zhp.flea_market.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池配置类
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * 统计报表并行查询线程池
+     * 队列满时由调用线程执行，保证请求不会因线程池饱和而失败
+     */
+    @Bean("statisticsExecutor")
+    public ThreadPoolTaskExecutor statisticsExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("statistics-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 积分流水批量写入线程池
+     * 单线程串行写入；已有一次待执行的写入任务时丢弃新的触发，由该任务一并写出缓冲区
+     */
+    @Bean("pointsLedgerExecutor")
+    public ThreadPoolTaskExecutor pointsLedgerExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("points-ledger-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 启动后台任务线程池
+     * 用于应用启动后的索引重建、汇总数据回填等一次性耗时任务，守护线程不阻塞应用关闭
+     */
+    @Bean("startupTaskExecutor")
+    public ThreadPoolTaskExecutor startupTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("startup-task-");
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+}
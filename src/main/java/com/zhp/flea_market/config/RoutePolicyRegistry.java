@@ -0,0 +1,132 @@
+package com.zhp.flea_market.config;
+
+import com.zhp.flea_market.annotation.AuthCheck;
+import com.zhp.flea_market.annotation.LoginRequired;
+import com.zhp.flea_market.constant.UserConstant;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 接口认证策略表
+ * 启动时扫描所有 RequestMappingHandlerMapping 中的接口，一次性解析 @LoginRequired、@AuthCheck
+ * 和管理接口路径规则，生成不可变的 方法 -> 认证策略 映射，拦截器每次请求只做一次查表
+ */
+@Slf4j
+@Component
+public class RoutePolicyRegistry {
+
+    /**
+     * 管理接口路径规则：以/add、/update、/delete结尾或其后只跟路径参数
+     */
+    private static final Pattern MANAGEMENT_PATTERN = Pattern.compile(".*/(add|update|delete)(/.*)?$");
+
+    private final ApplicationContext applicationContext;
+
+    private volatile Map<Method, RoutePolicy> policies = Collections.emptyMap();
+
+    public RoutePolicyRegistry(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * 容器刷新完成后编译策略表
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void compile() {
+        Map<Method, RoutePolicy> compiled = new HashMap<>();
+        for (RequestMappingHandlerMapping mapping : applicationContext.getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+            for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : mapping.getHandlerMethods().entrySet()) {
+                compiled.put(entry.getValue().getMethod(),
+                        buildPolicy(entry.getValue(), entry.getKey().getPatternValues()));
+            }
+        }
+        policies = Map.copyOf(compiled);
+        log.info("接口认证策略表编译完成，接口数: {}", compiled.size());
+    }
+
+    /**
+     * 获取接口的认证策略
+     *
+     * @param handlerMethod 处理方法
+     * @param requestURI 请求路径，仅在策略表未收录该方法时用于判断管理接口
+     * @return 认证策略
+     */
+    public RoutePolicy getPolicy(HandlerMethod handlerMethod, String requestURI) {
+        RoutePolicy policy = policies.get(handlerMethod.getMethod());
+        if (policy != null) {
+            return policy;
+        }
+        return buildPolicy(handlerMethod, Collections.singleton(requestURI));
+    }
+
+    private RoutePolicy buildPolicy(HandlerMethod handlerMethod, Set<String> patterns) {
+        LoginRequired loginRequired = handlerMethod.getMethodAnnotation(LoginRequired.class);
+        AuthCheck authCheck = handlerMethod.getMethodAnnotation(AuthCheck.class);
+
+        if (authCheck != null) {
+            String mustRole = authCheck.mustRole();
+            return new RoutePolicy(true, mustRole.isEmpty() ? null : mustRole,
+                    String.format("权限不足，需要%s权限", mustRole));
+        }
+        if (loginRequired != null) {
+            return loginRequired.permitNull() ? RoutePolicy.PUBLIC : RoutePolicy.LOGIN;
+        }
+        // 自动识别管理接口：以/add、/update、/delete结尾的接口需要管理员权限
+        for (String pattern : patterns) {
+            if (MANAGEMENT_PATTERN.matcher(pattern).matches()
+                    && !pattern.contains("/user/register")
+                    && !pattern.contains("/user/login")) {
+                return RoutePolicy.MANAGEMENT;
+            }
+        }
+        return RoutePolicy.PUBLIC;
+    }
+
+    /**
+     * 单个接口的认证策略
+     */
+    @Getter
+    public static class RoutePolicy {
+
+        static final RoutePolicy PUBLIC = new RoutePolicy(false, null, null);
+
+        static final RoutePolicy LOGIN = new RoutePolicy(true, null, null);
+
+        static final RoutePolicy MANAGEMENT = new RoutePolicy(true, UserConstant.ADMIN_ROLE, "权限不足，需要管理员权限");
+
+        /**
+         * 是否必须登录
+         */
+        private final boolean loginRequired;
+
+        /**
+         * 必须具备的角色，为null时不校验角色（管理员始终通过）
+         */
+        private final String mustRole;
+
+        /**
+         * 角色不符时的提示信息
+         */
+        private final String denyMessage;
+
+        RoutePolicy(boolean loginRequired, String mustRole, String denyMessage) {
+            this.loginRequired = loginRequired;
+            this.mustRole = mustRole;
+            this.denyMessage = denyMessage;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 
 /**
@@ -23,7 +24,9 @@ public class SecurityConfig {
             // 禁用CSRF
             .csrf(csrf -> csrf.disable())
             // 禁用CORS
-            .cors(cors -> cors.disable());
+            .cors(cors -> cors.disable())
+            // 无状态认证，不创建也不使用HttpSession
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
         return http.build();
     }
@@ -1,14 +1,14 @@
 package com.zhp.flea_market.config;
 
-import com.zhp.flea_market.annotation.AuthCheck;
-import com.zhp.flea_market.annotation.LoginRequired;
 import com.zhp.flea_market.common.ErrorCode;
 import com.zhp.flea_market.common.JwtKit;
 import com.zhp.flea_market.common.JwtProperties;
+import com.zhp.flea_market.common.TokenRevocationRegistry;
 import com.zhp.flea_market.constant.UserConstant;
 import com.zhp.flea_market.exception.BusinessException;
 import com.zhp.flea_market.model.entity.User;
 import com.zhp.flea_market.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -30,11 +30,17 @@ public class UnifiedAuthInterceptor implements HandlerInterceptor {
     private final JwtKit jwtKit;
     private final JwtProperties jwtProperties;
     private final UserService userService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final RoutePolicyRegistry routePolicyRegistry;
 
-    public UnifiedAuthInterceptor(JwtKit jwtKit, JwtProperties jwtProperties, UserService userService) {
+    public UnifiedAuthInterceptor(JwtKit jwtKit, JwtProperties jwtProperties, UserService userService,
+                                  TokenRevocationRegistry tokenRevocationRegistry,
+                                  RoutePolicyRegistry routePolicyRegistry) {
         this.jwtKit = jwtKit;
         this.jwtProperties = jwtProperties;
         this.userService = userService;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.routePolicyRegistry = routePolicyRegistry;
     }
 
     @Override
@@ -46,21 +52,18 @@ public class UnifiedAuthInterceptor implements HandlerInterceptor {
 
         HandlerMethod handlerMethod = (HandlerMethod) handler;
         
-        // 检查是否有LoginRequired注解
-        LoginRequired loginRequired = handlerMethod.getMethodAnnotation(LoginRequired.class);
-        
-        // 检查是否有AuthCheck注解
-        AuthCheck authCheck = handlerMethod.getMethodAnnotation(AuthCheck.class);
+        // 查询启动时编译好的接口认证策略
+        RoutePolicyRegistry.RoutePolicy policy = routePolicyRegistry.getPolicy(handlerMethod, request.getRequestURI());
         
         // 执行JWT认证
         User currentUser = performJwtAuthentication(request);
         
         // 处理权限验证
-        handleAuthorization(loginRequired, authCheck, currentUser, request);
+        handleAuthorization(policy, currentUser);
         
         // 设置用户信息到请求属性
         if (currentUser != null) {
-            request.setAttribute("currentUser", currentUser);
+            request.setAttribute(UserConstant.CURRENT_USER, currentUser);
             request.setAttribute("userRole", currentUser.getUserRole());
         }
 
@@ -97,29 +100,22 @@ public class UnifiedAuthInterceptor implements HandlerInterceptor {
         
         try {
             // 解析JWT令牌获取用户信息
-            String username = jwtKit.parseJwtToken(jwtToken).get("username", String.class);
+            Claims claims = jwtKit.parseJwtToken(jwtToken);
+            String username = claims.get("username", String.class);
             
             if (username == null) {
                 log.debug("JWT令牌中未找到用户名");
                 return null;
             }
 
-            // 查询用户信息
-            User user = userService.lambdaQuery()
-                    .eq(User::getUserAccount, username)
-                    .one();
-            
+            User user = resolveUser(claims, username);
             if (user == null) {
-                log.warn("JWT令牌中的用户不存在: {}", username);
                 return null;
             }
 
             // 设置Spring Security认证信息
             setSecurityContextAuthentication(user, request);
             
-            // 将用户信息存储到session中，确保刷新后仍能获取
-            request.getSession().setAttribute("USER_LOGIN_STATE", user);
-            
             log.debug("JWT认证成功，用户: {}", user.getUserName());
             return user;
             
@@ -129,6 +125,51 @@ public class UnifiedAuthInterceptor implements HandlerInterceptor {
         }
     }
 
+    /**
+     * 根据令牌声明解析当前用户
+     * 令牌携带用户ID和角色且吊销名单已加载时，直接由声明构造用户主体，只校验内存中的吊销名单；
+     * 旧令牌、关闭信任声明或吊销名单尚未加载成功时，回退为按用户ID/账号加载用户并按用户记录校验
+     */
+    private User resolveUser(Claims claims, String username) {
+        Object userIdClaim = claims.get("userId");
+        Long userId = userIdClaim instanceof Number ? ((Number) userIdClaim).longValue() : null;
+        String claimedRole = claims.get("userRole", String.class);
+
+        if (jwtProperties.isTrustClaims() && tokenRevocationRegistry.isReady()
+                && userId != null && claimedRole != null) {
+            String role = tokenRevocationRegistry.resolveRole(userId, claimedRole);
+            if (role == null) {
+                log.warn("JWT令牌对应的用户已被封禁或删除: {}", username);
+                return null;
+            }
+            User principal = new User();
+            principal.setId(userId);
+            principal.setUserAccount(username);
+            principal.setUserName(claims.get("userName", String.class));
+            principal.setUserRole(role);
+            return principal;
+        }
+
+        // 查询用户信息
+        User user = userId != null
+                ? userService.getById(userId)
+                : userService.lambdaQuery().eq(User::getUserAccount, username).one();
+        
+        if (user == null) {
+            log.warn("JWT令牌中的用户不存在: {}", username);
+            return null;
+        }
+        // 名单未加载时只能以用户记录为准
+        boolean revoked = tokenRevocationRegistry.isReady()
+                ? tokenRevocationRegistry.resolveRole(user.getId(), user.getUserRole()) == null
+                : TokenRevocationRegistry.isRevoked(user);
+        if (revoked) {
+            log.warn("JWT令牌对应的用户已被封禁或删除: {}", username);
+            return null;
+        }
+        return user;
+    }
+
     /**
      * 设置Spring Security认证上下文
      */
@@ -151,63 +192,29 @@ public class UnifiedAuthInterceptor implements HandlerInterceptor {
     /**
      * 处理权限验证
      */
-    private void handleAuthorization(LoginRequired loginRequired, AuthCheck authCheck, User currentUser, HttpServletRequest request) {
-        // 如果两个注解都没有，检查是否为管理接口（自动识别）
-        if (loginRequired == null && authCheck == null) {
-            // 自动识别管理接口：以/add、/update、/delete开头的接口需要管理员权限
-            String requestURI = request.getRequestURI();
-            if (isManagementInterface(requestURI)) {
-                if (currentUser == null) {
-                    log.error("管理接口需要登录，但用户未登录");
-                    throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
-                }
-                
-                // 检查是否为管理员
-                if (!UserConstant.ADMIN_ROLE.equals(currentUser.getUserRole())) {
-                    log.error("权限验证失败：用户[{}]没有管理员权限", currentUser.getUserName());
-                    throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "权限不足，需要管理员权限");
-                }
-            }
+    private void handleAuthorization(RoutePolicyRegistry.RoutePolicy policy, User currentUser) {
+        if (!policy.isLoginRequired()) {
             return;
         }
 
-        if (loginRequired != null) {
-            if (!loginRequired.permitNull() && currentUser == null) {
-                log.error("接口需要登录，但用户未登录");
-                throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
-            }
+        if (currentUser == null) {
+            log.error("接口需要登录，但用户未登录");
+            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
         }
 
-        if (authCheck != null) {
-            if (currentUser == null) {
-                log.error("权限验证失败：用户未登录");
-                throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
-            }
-
-            String mustRole = authCheck.mustRole();
-            if (!mustRole.isEmpty()) {
-                // 检查用户角色是否符合要求
-                boolean hasPermission = mustRole.equals(currentUser.getUserRole()) || 
-                                      UserConstant.ADMIN_ROLE.equals(currentUser.getUserRole());
-                
-                if (!hasPermission) {
-                    log.error("权限验证失败：用户[{}]没有[{}]权限", currentUser.getUserName(), mustRole);
-                    throw new BusinessException(ErrorCode.NO_AUTH_ERROR, 
-                        String.format("权限不足，需要%s权限", mustRole));
-                }
+        String mustRole = policy.getMustRole();
+        if (mustRole != null) {
+            // 检查用户角色是否符合要求
+            boolean hasPermission = mustRole.equals(currentUser.getUserRole()) || 
+                                  UserConstant.ADMIN_ROLE.equals(currentUser.getUserRole());
+            
+            if (!hasPermission) {
+                log.error("权限验证失败：用户[{}]没有[{}]权限", currentUser.getUserName(), mustRole);
+                throw new BusinessException(ErrorCode.NO_AUTH_ERROR, policy.getDenyMessage());
             }
         }
     }
     
-    /**
-     * 判断是否为管理接口
-     */
-    private boolean isManagementInterface(String requestURI) {
-        return requestURI.matches(".*/(add|update|delete)(/.*)?$") && 
-               !requestURI.contains("/user/register") && 
-               !requestURI.contains("/user/login");
-    }
-    
     /**
      * 从Cookie中获取token
      */
@@ -6,9 +6,9 @@ package com.zhp.flea_market.constant;
 public interface UserConstant {
 
     /**
-     * 用户登录态键
+     * 当前登录用户的请求属性键（无状态模式，登录态只存在于本次请求）
      */
-    String USER_LOGIN_STATE = "user_login";
+    String CURRENT_USER = "currentUser";
 
     //  region 权限
 
@@ -42,6 +42,17 @@ public abstract class BaseController {
         return new Page<>(current, size);
     }
 
+    /**
+     * 游标分页通用参数校验
+     *
+     * @param size 每页大小
+     */
+    protected void validateCursorPageSize(long size) {
+        if (size < 1 || size > 100) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "每页大小必须在1-100之间");
+        }
+    }
+
     /**
      * 分页查询通用参数校验（带限制）
      *
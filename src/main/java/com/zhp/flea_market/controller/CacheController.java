@@ -0,0 +1,58 @@
+package com.zhp.flea_market.controller;
+
+import com.zhp.flea_market.annotation.AuthCheck;
+import com.zhp.flea_market.common.BaseResponse;
+import com.zhp.flea_market.common.EntityCacheManager;
+import com.zhp.flea_market.common.ResultUtils;
+import com.zhp.flea_market.constant.UserConstant;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 缓存管理接口
+ */
+@RestController
+@RequestMapping("/cache")
+@Slf4j
+@Tag(name = "缓存管理", description = "实体缓存命中统计与清理接口")
+public class CacheController extends BaseController {
+
+    @Resource
+    private EntityCacheManager entityCacheManager;
+
+    /**
+     * 获取实体缓存命中统计
+     *
+     * @param request HTTP请求
+     * @return 缓存名称 -> 统计信息
+     */
+    @GetMapping("/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    @Operation(summary = "获取缓存统计", description = "管理员查看用户、二手物品、分类实体缓存的命中率和容量")
+    public BaseResponse<Map<String, Map<String, Object>>> getCacheStats(HttpServletRequest request) {
+        Map<String, Map<String, Object>> stats = entityCacheManager.getStats();
+        logOperation("获取缓存统计", request);
+        return ResultUtils.success(stats);
+    }
+
+    /**
+     * 清空所有实体缓存
+     *
+     * @param request HTTP请求
+     * @return 是否成功
+     */
+    @PostMapping("/clear")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    @Operation(summary = "清空缓存", description = "管理员清空所有实体缓存，直接修改数据库后使用")
+    public BaseResponse<Boolean> clearCache(HttpServletRequest request) {
+        entityCacheManager.invalidateAll();
+        logOperation("清空缓存", request);
+        return ResultUtils.success(true);
+    }
+}
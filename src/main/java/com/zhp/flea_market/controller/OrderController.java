@@ -6,9 +6,12 @@ import com.zhp.flea_market.annotation.LoginRequired;
 import com.zhp.flea_market.common.BaseResponse;
 import com.zhp.flea_market.common.ResultUtils;
 import com.zhp.flea_market.constant.UserConstant;
+import com.zhp.flea_market.model.dto.request.OrderCheckoutRequest;
 import com.zhp.flea_market.model.dto.request.OrderConfirmRequest;
 import com.zhp.flea_market.model.dto.request.OrderRequest;
 import com.zhp.flea_market.model.entity.Order;
+import com.zhp.flea_market.model.vo.CheckoutItemVO;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.OrderVO;
 import com.zhp.flea_market.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -59,6 +62,32 @@ public class OrderController extends BaseController {
         return handleOperationResult(true, "订单创建成功", orderId);
     }
 
+    /**
+     * 批量结算
+     *
+     * @param checkoutRequest 批量结算请求，未指定物品时结算整个购物车
+     * @param request HTTP请求
+     * @return 每个二手物品的下单结果
+     */
+    @Operation(summary = "批量结算", description = "一次为多个二手物品创建订单，未指定物品时结算整个购物车，返回每个物品的下单结果")
+    @PostMapping("/checkout")
+    @LoginRequired
+    public BaseResponse<List<CheckoutItemVO>> checkout(
+            @Parameter(description = "批量结算请求") @RequestBody(required = false) OrderCheckoutRequest checkoutRequest,
+            HttpServletRequest request) {
+        List<Long> productIds = checkoutRequest != null ? checkoutRequest.getProductIds() : null;
+
+        // 批量结算
+        List<CheckoutItemVO> results = orderService.checkout(productIds, request);
+
+        long successCount = results.stream().filter(CheckoutItemVO::getSuccess).count();
+        logOperation("批量结算", successCount > 0, request,
+                "物品数", results.size(),
+                "成功数", successCount
+        );
+        return ResultUtils.success(results);
+    }
+
     /**
      * 支付订单
      *
@@ -210,6 +239,60 @@ public class OrderController extends BaseController {
         return ResultUtils.success(page);
     }
 
+    /**
+     * 获取买家订单列表（游标分页）
+     *
+     * @param cursor 上一页返回的游标
+     * @param size 每页大小
+     * @param request HTTP请求
+     * @return 游标分页订单列表
+     */
+    @Operation(summary = "获取买家订单列表（游标分页）", description = "按创建时间倒序的游标分页，不返回总数，翻页深度不影响查询代价")
+    @GetMapping("/list/buyer/cursor")
+    @LoginRequired
+    public BaseResponse<CursorPageVO<Order>> listBuyerOrdersByCursor(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        // 参数校验
+        validateCursorPageSize(size);
+
+        // 执行游标分页查询
+        CursorPageVO<Order> orderPage = orderService.getBuyerOrdersByCursor(request, cursor, size);
+        
+        logOperation("获取买家订单列表（游标分页）", request, 
+                "每页大小", size
+        );
+        return ResultUtils.success(orderPage);
+    }
+
+    /**
+     * 获取卖家订单列表（游标分页）
+     *
+     * @param cursor 上一页返回的游标
+     * @param size 每页大小
+     * @param request HTTP请求
+     * @return 游标分页订单列表
+     */
+    @Operation(summary = "获取卖家订单列表（游标分页）", description = "按创建时间倒序的游标分页，不返回总数，翻页深度不影响查询代价")
+    @GetMapping("/list/seller/cursor")
+    @LoginRequired
+    public BaseResponse<CursorPageVO<Order>> listSellerOrdersByCursor(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        // 参数校验
+        validateCursorPageSize(size);
+
+        // 执行游标分页查询
+        CursorPageVO<Order> orderPage = orderService.getSellerOrdersByCursor(request, cursor, size);
+        
+        logOperation("获取卖家订单列表（游标分页）", request, 
+                "每页大小", size
+        );
+        return ResultUtils.success(orderPage);
+    }
+
     /**
      * 获取订单统计信息
      *
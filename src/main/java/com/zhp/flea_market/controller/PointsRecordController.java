@@ -0,0 +1,87 @@
+package com.zhp.flea_market.controller;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhp.flea_market.annotation.LoginRequired;
+import com.zhp.flea_market.common.BaseResponse;
+import com.zhp.flea_market.common.ResultUtils;
+import com.zhp.flea_market.model.entity.PointsRecord;
+import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.model.vo.CursorPageVO;
+import com.zhp.flea_market.service.PointsRecordService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 积分记录接口
+ */
+@RestController
+@RequestMapping("/points-record")
+@Slf4j
+@Tag(name = "积分记录管理", description = "积分流水的查询接口")
+public class PointsRecordController extends BaseController {
+
+    @Resource
+    private PointsRecordService pointsRecordService;
+
+    /**
+     * 获取当前用户的积分记录列表
+     *
+     * @param current 当前页码
+     * @param size 每页大小
+     * @param request HTTP请求
+     * @return 分页积分记录列表
+     */
+    @Operation(summary = "获取积分记录列表", description = "获取当前登录用户的积分流水，按时间倒序")
+    @GetMapping("/list")
+    @LoginRequired
+    public BaseResponse<Page<PointsRecord>> listPointsRecords(
+            @Parameter(description = "当前页码") @RequestParam(defaultValue = "1") int current,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        // 参数校验
+        Page<PointsRecord> page = validatePageParams(current, size);
+
+        // 执行分页查询
+        User currentUser = userService.getLoginUser(request);
+        Page<PointsRecord> pointsRecordPage = pointsRecordService.getPointsRecordPage(currentUser.getId(), page);
+
+        logOperation("获取积分记录列表", request,
+                "当前页", current,
+                "每页大小", size
+        );
+        return ResultUtils.success(pointsRecordPage);
+    }
+
+    /**
+     * 获取当前用户的积分记录列表（游标分页）
+     *
+     * @param cursor 上一页返回的游标
+     * @param size 每页大小
+     * @param request HTTP请求
+     * @return 游标分页积分记录列表
+     */
+    @Operation(summary = "获取积分记录列表（游标分页）", description = "按时间倒序的游标分页，不返回总数，翻页深度不影响查询代价")
+    @GetMapping("/list/cursor")
+    @LoginRequired
+    public BaseResponse<CursorPageVO<PointsRecord>> listPointsRecordsByCursor(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        // 参数校验
+        validateCursorPageSize(size);
+
+        // 执行游标分页查询
+        User currentUser = userService.getLoginUser(request);
+        CursorPageVO<PointsRecord> pointsRecordPage = pointsRecordService.getPointsRecordsByCursor(currentUser.getId(), cursor, size);
+
+        logOperation("获取积分记录列表（游标分页）", request,
+                "每页大小", size
+        );
+        return ResultUtils.success(pointsRecordPage);
+    }
+}
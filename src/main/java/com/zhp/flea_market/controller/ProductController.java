@@ -15,6 +15,8 @@ import com.zhp.flea_market.model.dto.request.ProductUpdateRequest;
 import com.zhp.flea_market.model.entity.Category;
 import com.zhp.flea_market.model.entity.Product;
 import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.model.enums.CountStrategyEnum;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.ProductVO;
 import com.zhp.flea_market.service.CategoryService;
 import com.zhp.flea_market.service.ProductService;
@@ -221,6 +223,7 @@ public class ProductController extends BaseController {
      * @param sortOrder 排序顺序
      * @param current 当前页码
      * @param size 每页大小
+     * @param countStrategy 总数统计策略
      * @param request HTTP请求
      * @return 分页二手物品视图列表
      */
@@ -236,6 +239,7 @@ public class ProductController extends BaseController {
             @Parameter(description = "排序顺序 (asc/desc)") @RequestParam(required = false, defaultValue = "desc") String sortOrder,
             @Parameter(description = "当前页码") @RequestParam(defaultValue = "1") int current,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "总数统计策略 (exact-精确, cached-缓存, none-不统计)") @RequestParam(defaultValue = "cached") String countStrategy,
             HttpServletRequest request) {
         // 参数校验
         Page<Product> page = validatePageParams(current, size);
@@ -245,8 +249,13 @@ public class ProductController extends BaseController {
         if (paymentMethod != null && (paymentMethod < 0 || paymentMethod > 3)) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "支付方式无效");
         }
+        CountStrategyEnum countStrategyEnum = CountStrategyEnum.getEnumByValue(countStrategy);
+        // 搜索始终带有筛选条件，按表统计信息估算的总数没有意义
+        if (countStrategyEnum == null || countStrategyEnum == CountStrategyEnum.ESTIMATED) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "总数统计策略无效");
+        }
         List<Product> productList = productService.advancedSearchProducts(
-                keyword, categoryId, minPrice, maxPrice, paymentMethod, sortField, sortOrder, page);
+                keyword, categoryId, minPrice, maxPrice, paymentMethod, sortField, sortOrder, page, countStrategyEnum);
         List<ProductVO> productVOList = productService.convertToProductVOList(productList);
         Page<ProductVO> productVOPage = new Page<>(page.getCurrent(), page.getSize(), page.getTotal());
         productVOPage.setRecords(productVOList);
@@ -263,6 +272,52 @@ public class ProductController extends BaseController {
         return ResultUtils.success(productVOPage);
     }
 
+    /**
+     * 高级搜索二手物品（游标分页）
+     *
+     * @param keyword 关键词
+     * @param categoryId 分类ID
+     * @param minPrice 最低价格
+     * @param maxPrice 最高价格
+     * @param paymentMethod 支付方式
+     * @param cursor 上一页返回的游标
+     * @param size 每页大小
+     * @param request HTTP请求
+     * @return 游标分页二手物品视图列表
+     */
+    @Operation(summary = "高级搜索二手物品（游标分页）", description = "按发布时间倒序的游标分页搜索，不返回总数，翻页深度不影响查询代价")
+    @GetMapping("/advanced-search/cursor")
+    public BaseResponse<CursorPageVO<ProductVO>> advancedSearchProductsByCursor(
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String keyword,
+            @Parameter(description = "分类ID") @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "最低价格") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "最高价格") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "支付方式 (0-现金, 1-微信, 2-积分, 3-交换)") @RequestParam(required = false) Integer paymentMethod,
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        // 参数校验
+        validateCursorPageSize(size);
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "最低价格不能高于最高价格");
+        }
+        if (paymentMethod != null && (paymentMethod < 0 || paymentMethod > 3)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "支付方式无效");
+        }
+        CursorPageVO<ProductVO> productVOPage = productService.advancedSearchProductsByCursor(
+                keyword, categoryId, minPrice, maxPrice, paymentMethod, cursor, size)
+                .convert(productService::convertToProductVOList);
+        
+        logOperation("高级搜索二手物品（游标分页）", request, 
+                "关键词", keyword,
+                "分类ID", categoryId,
+                "价格区间", minPrice + "-" + maxPrice,
+                "支付方式", paymentMethod,
+                "每页大小", size
+        );
+        return ResultUtils.success(productVOPage);
+    }
+
     /**
      * 获取用户发布的二手物品列表
      *
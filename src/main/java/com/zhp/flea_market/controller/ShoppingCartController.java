@@ -89,6 +89,30 @@ public class ShoppingCartController extends BaseController {
         return handleOperationResult(result, "购物车商品状态校验成功");
     }
 
+    /**
+     * 获取购物车商品数量
+     */
+    @GetMapping("/count")
+    @Operation(summary = "获取购物车商品数量", description = "获取当前用户购物车中的商品数量，用于购物车角标，不查询数据库")
+    @LoginRequired
+    public BaseResponse<Integer> getCartCount(HttpServletRequest request) {
+        int count = shoppingCartService.getCartCount(request);
+        return ResultUtils.success(count);
+    }
+
+    /**
+     * 移除购物车中已售出或已删除的商品
+     */
+    @DeleteMapping("/invalid")
+    @Operation(summary = "清理购物车失效商品", description = "批量移除购物车中已售出或已删除的商品，返回移除数量")
+    @LoginRequired
+    public BaseResponse<Integer> pruneInvalidItems(HttpServletRequest request) {
+        int removed = shoppingCartService.pruneInvalidItems(request);
+        
+        logOperation("清理购物车失效商品", request, "移除数量", removed);
+        return ResultUtils.success(removed);
+    }
+
     /**
      * 检查商品是否在购物车中
      */
@@ -1,6 +1,12 @@
 package com.zhp.flea_market.controller;
 
+import com.zhp.flea_market.annotation.AuthCheck;
+import com.zhp.flea_market.common.BaseResponse;
+import com.zhp.flea_market.common.ResultUtils;
+import com.zhp.flea_market.common.StatisticsResultCache;
+import com.zhp.flea_market.constant.UserConstant;
 import com.zhp.flea_market.model.dto.response.MonthlyStatisticsResponse;
+import com.zhp.flea_market.service.StatisticsRollupService;
 import com.zhp.flea_market.service.StatisticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -8,10 +14,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 /**
  * 统计分析接口
  */
@@ -24,6 +33,10 @@ public class StatisticsController extends BaseController {
 
     private final StatisticsService statisticsService;
 
+    private final StatisticsRollupService statisticsRollupService;
+
+    private final StatisticsResultCache statisticsResultCache;
+
     @GetMapping("/monthly")
     @Operation(summary = "获取月度统计数据", description = "获取指定月份的完整统计数据")
     public MonthlyStatisticsResponse getMonthlyStatistics(
@@ -78,4 +91,28 @@ public class StatisticsController extends BaseController {
         log.info("获取每月物品分类已售量: {}年{}月", year, month);
         return statisticsService.getMonthlyCategorySoldInventory(year, month);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/rollup/rebuild")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    @Operation(summary = "重建统计汇总", description = "管理员从原始订单和物品数据重建统计汇总；不传年月时逐月重建全部历史")
+    public BaseResponse<Integer> rebuildRollup(
+            @Parameter(description = "年份", example = "2024")
+            @RequestParam(required = false) Integer year,
+            @Parameter(description = "月份", example = "12")
+            @RequestParam(required = false) Integer month) {
+        if (year != null && month != null) {
+            log.info("重建统计汇总: {}年{}月", year, month);
+            statisticsRollupService.rebuildMonth(year, month);
+            return ResultUtils.success(1);
+        }
+        log.info("重建全部统计汇总");
+        return ResultUtils.success(statisticsRollupService.rebuildAll());
+    }
+
+    @GetMapping("/cache/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    @Operation(summary = "获取统计报表缓存统计", description = "管理员查看统计报表结果缓存的命中情况")
+    public BaseResponse<Map<String, Object>> getCacheStats() {
+        return ResultUtils.success(statisticsResultCache.getStats());
+    }
+}
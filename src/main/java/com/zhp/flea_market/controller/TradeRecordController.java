@@ -7,6 +7,7 @@ import com.zhp.flea_market.common.BaseResponse;
 import com.zhp.flea_market.common.ResultUtils;
 import com.zhp.flea_market.constant.UserConstant;
 import com.zhp.flea_market.model.entity.TradeRecord;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.TradeRecordVO;
 import com.zhp.flea_market.service.TradeRecordService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -111,6 +112,60 @@ public class TradeRecordController extends BaseController {
         return ResultUtils.success(tradeRecordVOPage);
     }
 
+    /**
+     * 获取买家的交易记录列表（游标分页）
+     *
+     * @param cursor 上一页返回的游标
+     * @param size 每页大小
+     * @param request HTTP请求
+     * @return 游标分页交易记录列表
+     */
+    @Operation(summary = "获取买家的交易记录列表（游标分页）", description = "按交易时间倒序的游标分页，不返回总数，翻页深度不影响查询代价")
+    @GetMapping("/list/buyer/cursor")
+    @LoginRequired
+    public BaseResponse<CursorPageVO<TradeRecordVO>> listBuyerTradeRecordsByCursor(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        // 参数校验
+        validateCursorPageSize(size);
+
+        // 执行游标分页查询
+        CursorPageVO<TradeRecordVO> tradeRecordVOPage = tradeRecordService.getBuyerTradeRecordsByCursor(request, cursor, size);
+        
+        logOperation("获取买家交易记录列表（游标分页）", request, 
+                "每页大小", size
+        );
+        return ResultUtils.success(tradeRecordVOPage);
+    }
+
+    /**
+     * 获取卖家的交易记录列表（游标分页）
+     *
+     * @param cursor 上一页返回的游标
+     * @param size 每页大小
+     * @param request HTTP请求
+     * @return 游标分页交易记录列表
+     */
+    @Operation(summary = "获取卖家的交易记录列表（游标分页）", description = "按交易时间倒序的游标分页，不返回总数，翻页深度不影响查询代价")
+    @GetMapping("/list/seller/cursor")
+    @LoginRequired
+    public BaseResponse<CursorPageVO<TradeRecordVO>> listSellerTradeRecordsByCursor(
+            @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        // 参数校验
+        validateCursorPageSize(size);
+
+        // 执行游标分页查询
+        CursorPageVO<TradeRecordVO> tradeRecordVOPage = tradeRecordService.getSellerTradeRecordsByCursor(request, cursor, size);
+        
+        logOperation("获取卖家交易记录列表（游标分页）", request, 
+                "每页大小", size
+        );
+        return ResultUtils.success(tradeRecordVOPage);
+    }
+
     /**
      * 获取所有交易记录（管理员权限）
      *
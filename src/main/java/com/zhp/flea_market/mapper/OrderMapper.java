@@ -1,11 +1,16 @@
 package com.zhp.flea_market.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zhp.flea_market.model.dto.response.MonthlyStatisticsResponse;
 import com.zhp.flea_market.model.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
@@ -33,4 +38,92 @@ public interface OrderMapper extends BaseMapper<Order> {
      */
     @Select("SELECT * FROM market_order WHERE buyer_id = #{buyerId} AND status = #{status}")
     List<Order> findByBuyerIdAndStatus(@Param("buyerId") Long buyerId, @Param("status") Integer status);
+
+    /**
+     * 按分类汇总时间段内已完成订单的交易次数和金额（金额取订单对应物品价格）
+     */
+    @Select("SELECT p.category_id AS categoryId, COALESCE(c.name, '未知分类') AS categoryName, " +
+           "COUNT(*) AS tradeCount, COALESCE(SUM(p.price), 0) AS totalAmount " +
+           "FROM market_order o " +
+           "JOIN product p ON p.id = o.product_id AND p.deleted = 0 " +
+           "LEFT JOIN category c ON c.id = p.category_id AND c.deleted = 0 " +
+           "WHERE o.status = 2 AND o.deleted = 0 " +
+           "AND o.finish_time >= #{startTime} AND o.finish_time < #{endTime} " +
+           "GROUP BY p.category_id, c.name " +
+           "ORDER BY tradeCount DESC, p.category_id")
+    List<MonthlyStatisticsResponse.CategoryRankingItem> selectCategoryTradeRanking(@Param("startTime") Date startTime,
+                                                                                @Param("endTime") Date endTime);
+
+    /**
+     * 按买家汇总时间段内已完成订单的交易次数和金额（金额取订单对应物品价格）
+     */
+    @Select("SELECT o.buyer_id AS userId, COALESCE(u.user_name, '未知用户') AS userName, " +
+           "COALESCE(u.user_avatar, '') AS avatar, " +
+           "COUNT(*) AS tradeCount, COALESCE(SUM(p.price), 0) AS totalAmount " +
+           "FROM market_order o " +
+           "JOIN product p ON p.id = o.product_id AND p.deleted = 0 " +
+           "LEFT JOIN user u ON u.id = o.buyer_id AND u.deleted = 0 " +
+           "WHERE o.status = 2 AND o.deleted = 0 " +
+           "AND o.finish_time >= #{startTime} AND o.finish_time < #{endTime} " +
+           "GROUP BY o.buyer_id, u.user_name, u.user_avatar " +
+           "ORDER BY tradeCount DESC, o.buyer_id")
+    List<MonthlyStatisticsResponse.UserRankingItem> selectBuyerTradeRanking(@Param("startTime") Date startTime,
+                                                                         @Param("endTime") Date endTime);
+
+    /**
+     * 按 (分类, 买家) 一次性汇总时间段内已完成订单的交易次数和金额，
+     * 同一结果可同时折叠出分类排行和买家排行
+     */
+    @Select("SELECT p.category_id AS categoryId, COALESCE(c.name, '未知分类') AS categoryName, " +
+           "o.buyer_id AS userId, COALESCE(u.user_name, '未知用户') AS userName, COALESCE(u.user_avatar, '') AS avatar, " +
+           "COUNT(*) AS tradeCount, COALESCE(SUM(p.price), 0) AS totalAmount " +
+           "FROM market_order o " +
+           "JOIN product p ON p.id = o.product_id AND p.deleted = 0 " +
+           "LEFT JOIN category c ON c.id = p.category_id AND c.deleted = 0 " +
+           "LEFT JOIN user u ON u.id = o.buyer_id AND u.deleted = 0 " +
+           "WHERE o.status = 2 AND o.deleted = 0 " +
+           "AND o.finish_time >= #{startTime} AND o.finish_time < #{endTime} " +
+           "GROUP BY p.category_id, c.name, o.buyer_id, u.user_name, u.user_avatar")
+    List<Map<String, Object>> selectTradeSummaryByCategoryAndBuyer(@Param("startTime") Date startTime,
+                                                                   @Param("endTime") Date endTime);
+
+    /**
+     * 按状态汇总买家的订单数量，同时汇总已完成订单对应物品的价格
+     */
+    @Select("SELECT o.status AS status, COUNT(*) AS orderCount, " +
+           "COALESCE(SUM(CASE WHEN o.status = 2 THEN p.price END), 0) AS totalAmount " +
+           "FROM market_order o " +
+           "LEFT JOIN product p ON p.id = o.product_id AND p.deleted = 0 " +
+           "WHERE o.buyer_id = #{buyerId} AND o.deleted = 0 " +
+           "GROUP BY o.status")
+    List<Map<String, Object>> selectBuyerStatusSummary(@Param("buyerId") Long buyerId);
+
+    /**
+     * 查询创建时间早于截止时间的待支付订单，按 (status, deleted, create_time, id) 索引顺序读取
+     */
+    @Select("SELECT id, product_id, buyer_id FROM market_order " +
+           "WHERE status = 0 AND deleted = 0 AND create_time < #{deadline} " +
+           "ORDER BY create_time, id LIMIT #{limit}")
+    List<Order> selectExpiredUnpaidOrders(@Param("deadline") Date deadline, @Param("limit") int limit);
+
+    /**
+     * 锁定一批订单中仍为待支付的订单，与支付、取消的条件更新互斥
+     */
+    @Select("<script>" +
+           "SELECT id, product_id, buyer_id FROM market_order " +
+           "WHERE status = 0 AND deleted = 0 AND id IN " +
+           "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+           " FOR UPDATE" +
+           "</script>")
+    List<Order> selectUnpaidOrdersForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 一条 UPDATE 取消一批仍为待支付的订单
+     */
+    @Update("<script>" +
+           "UPDATE market_order SET status = 3, finish_time = NOW() " +
+           "WHERE status = 0 AND deleted = 0 AND id IN " +
+           "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+           "</script>")
+    int cancelUnpaidOrders(@Param("ids") Collection<Long> ids);
 }
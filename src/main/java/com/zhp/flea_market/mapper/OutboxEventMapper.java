@@ -0,0 +1,56 @@
+package com.zhp.flea_market.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zhp.flea_market.model.entity.OutboxEvent;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 事务发件箱 Mapper
+ */
+@Mapper
+public interface OutboxEventMapper extends BaseMapper<OutboxEvent> {
+
+    /**
+     * 写入事件，幂等键已存在时忽略，返回影响行数
+     */
+    @Insert("INSERT IGNORE INTO outbox_event (event_type, idempotency_key, payload, status, attempts, next_attempt_time) " +
+            "VALUES (#{eventType}, #{idempotencyKey}, #{payload}, 0, 0, NOW())")
+    int insertIgnore(@Param("eventType") String eventType, @Param("idempotencyKey") String idempotencyKey,
+                     @Param("payload") String payload);
+
+    /**
+     * 查询到期待处理的事件
+     */
+    @Select("SELECT * FROM outbox_event WHERE status = 0 AND next_attempt_time <= NOW() ORDER BY id LIMIT #{limit}")
+    List<OutboxEvent> selectDueEvents(@Param("limit") int limit);
+
+    /**
+     * 在处理事务内将事件置为已完成；影响行数为0说明已被其他实例处理
+     */
+    @Update("UPDATE outbox_event SET status = 1 WHERE id = #{id} AND status = 0")
+    int markCompleted(@Param("id") Long id);
+
+    /**
+     * 记录一次失败并安排重试，达到最大次数后置为已放弃
+     * 先计算 status 再累加 attempts（MySQL 按顺序赋值）
+     */
+    @Update("UPDATE outbox_event SET status = CASE WHEN attempts + 1 >= #{maxAttempts} THEN 2 ELSE 0 END, " +
+            "attempts = attempts + 1, next_attempt_time = #{nextAttemptTime}, last_error = #{lastError} " +
+            "WHERE id = #{id} AND status = 0")
+    int markFailed(@Param("id") Long id, @Param("maxAttempts") int maxAttempts,
+                   @Param("nextAttemptTime") Date nextAttemptTime, @Param("lastError") String lastError);
+
+    /**
+     * 清理早于指定时间的已完成事件
+     */
+    @Delete("DELETE FROM outbox_event WHERE status = 1 AND update_time < #{before} LIMIT #{limit}")
+    int deleteCompletedBefore(@Param("before") Date before, @Param("limit") int limit);
+}
@@ -0,0 +1,32 @@
+package com.zhp.flea_market.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zhp.flea_market.model.entity.PointsRecord;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 积分记录 Mapper
+ */
+@Mapper
+public interface PointsRecordMapper extends BaseMapper<PointsRecord> {
+
+    /**
+     * 查询账户余额与流水不一致的用户
+     * 流水余额 = 首条流水变动前的积分 + 全部变动之和，只比对有流水的用户；
+     * 流水异步写入，最近 quietSeconds 秒内积分有变动的用户跳过，留到下次核对
+     */
+    @Select("SELECT u.id AS userId, COALESCE(u.point, 0) AS balance, l.opening + l.total AS ledgerBalance " +
+           "FROM user u " +
+           "JOIN (SELECT r.user_id, SUM(r.points_change) AS total, " +
+           "      (SELECT f.points_after - f.points_change FROM points_record f " +
+           "       WHERE f.user_id = r.user_id AND f.deleted = 0 ORDER BY f.id LIMIT 1) AS opening " +
+           "      FROM points_record r WHERE r.deleted = 0 GROUP BY r.user_id) l ON l.user_id = u.id " +
+           "WHERE COALESCE(u.point, 0) <> l.opening + l.total " +
+           "AND (u.update_time IS NULL OR u.update_time < NOW() - INTERVAL #{quietSeconds} SECOND)")
+    List<Map<String, Object>> selectBalanceMismatches(@Param("quietSeconds") int quietSeconds);
+}
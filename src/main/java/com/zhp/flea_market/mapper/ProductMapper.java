@@ -1,11 +1,15 @@
 package com.zhp.flea_market.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zhp.flea_market.model.dto.response.MonthlyStatisticsResponse;
 import com.zhp.flea_market.model.entity.Product;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface ProductMapper extends BaseMapper<Product> {
@@ -33,10 +37,49 @@ public interface ProductMapper extends BaseMapper<Product> {
      */
     @Select("SELECT * FROM product WHERE user_id = #{userId} AND status = #{status}")
     List<Product> findByUserIdAndStatus(@Param("userId") Long userId, @Param("status") Integer status);
-    
+
+    /**
+     * 按分类统计时间段内发布且当前在售（status=1）的物品数量
+     */
+    @Select("SELECT p.category_id AS categoryId, COALESCE(c.name, '未知分类') AS categoryName, COUNT(*) AS itemCount " +
+           "FROM product p " +
+           "LEFT JOIN category c ON c.id = p.category_id AND c.deleted = 0 " +
+           "WHERE p.status = 1 AND p.deleted = 0 " +
+           "AND p.create_time >= #{startTime} AND p.create_time < #{endTime} " +
+           "GROUP BY p.category_id, c.name " +
+           "ORDER BY itemCount DESC, p.category_id")
+    List<MonthlyStatisticsResponse.CategoryInventoryItem> selectOnSaleInventoryByCategory(@Param("startTime") Date startTime,
+                                                                                       @Param("endTime") Date endTime);
+
+    /**
+     * 按分类统计时间段内售出（status=3，以更新时间为售出时间）的物品数量
+     */
+    @Select("SELECT p.category_id AS categoryId, COALESCE(c.name, '未知分类') AS categoryName, COUNT(*) AS itemCount " +
+           "FROM product p " +
+           "LEFT JOIN category c ON c.id = p.category_id AND c.deleted = 0 " +
+           "WHERE p.status = 3 AND p.deleted = 0 " +
+           "AND p.update_time >= #{startTime} AND p.update_time < #{endTime} " +
+           "GROUP BY p.category_id, c.name " +
+           "ORDER BY itemCount DESC, p.category_id")
+    List<MonthlyStatisticsResponse.CategoryInventoryItem> selectSoldInventoryByCategory(@Param("startTime") Date startTime,
+                                                                                     @Param("endTime") Date endTime);
+
+    /**
+     * 一次扫描同时统计时间段内各分类的在售量（status=1，按发布时间）和已售量（status=3，按更新时间）
+     */
+    @Select("SELECT p.category_id AS categoryId, COALESCE(c.name, '未知分类') AS categoryName, p.status AS status, COUNT(*) AS itemCount " +
+           "FROM product p " +
+           "LEFT JOIN category c ON c.id = p.category_id AND c.deleted = 0 " +
+           "WHERE p.deleted = 0 AND (" +
+           "(p.status = 1 AND p.create_time >= #{startTime} AND p.create_time < #{endTime}) " +
+           "OR (p.status = 3 AND p.update_time >= #{startTime} AND p.update_time < #{endTime})) " +
+           "GROUP BY p.category_id, c.name, p.status")
+    List<Map<String, Object>> selectInventoryByCategoryAndStatus(@Param("startTime") Date startTime,
+                                                                 @Param("endTime") Date endTime);
+
     /**
-     * 根据商品名字和商品状态查询商品列表
+     * 条件抢占二手物品：仅当物品仍处于已上架状态时置为已售出，返回影响行数（0 表示已被他人抢占）
      */
-    @Select("SELECT * FROM product WHERE product_name LIKE CONCAT('%', #{name}, '%') AND status = #{status}")
-    List<Product> findByNameAndStatus(@Param("name") String name, @Param("status") Integer status);
+    @Update("UPDATE product SET status = 3, update_time = NOW() WHERE id = #{id} AND status = 1 AND deleted = 0")
+    int claimProduct(@Param("id") Long id);
 }
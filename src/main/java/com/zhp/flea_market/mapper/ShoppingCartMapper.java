@@ -2,9 +2,13 @@ package com.zhp.flea_market.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zhp.flea_market.model.entity.ShoppingCart;
+import com.zhp.flea_market.model.vo.ShoppingCartVO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -21,4 +25,66 @@ public interface ShoppingCartMapper extends BaseMapper<ShoppingCart> {
      */
     @Select("SELECT * FROM shopping_cart WHERE user_id = #{userId} AND product_id = #{productId}")
     List<ShoppingCart> findByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    /**
+     * 一次查询用户购物车及二手物品、卖家信息
+     * 物品已删除时物品字段为空（productStatus 为 null）
+     */
+    @Select("SELECT sc.id AS id, sc.user_id AS userId, sc.product_id AS productId, sc.create_time AS createTime, " +
+           "p.product_name AS productName, p.main_image_url AS mainImageUrl, p.price AS price, " +
+           "p.description AS description, p.payment_method AS paymentMethod, p.status AS productStatus, " +
+           "u.user_name AS sellerName, u.user_avatar AS sellerAvatar " +
+           "FROM shopping_cart sc " +
+           "LEFT JOIN product p ON p.id = sc.product_id AND p.deleted = 0 " +
+           "LEFT JOIN user u ON u.id = p.user_id AND u.deleted = 0 " +
+           "WHERE sc.user_id = #{userId} AND sc.deleted = 0 " +
+           "ORDER BY sc.create_time DESC, sc.id DESC")
+    List<ShoppingCartVO> selectCartWithProduct(@Param("userId") Long userId);
+
+    /**
+     * 统计用户购物车中不可购买的项（物品已删除或不是已上架状态）
+     */
+    @Select("SELECT COUNT(*) FROM shopping_cart sc " +
+           "LEFT JOIN product p ON p.id = sc.product_id AND p.deleted = 0 " +
+           "WHERE sc.user_id = #{userId} AND sc.deleted = 0 " +
+           "AND (p.id IS NULL OR p.status <> 1)")
+    long countUnavailableItems(@Param("userId") Long userId);
+
+    /**
+     * 一条语句移除用户购物车中已售出或已删除的物品（逻辑删除）
+     */
+    @Update("UPDATE shopping_cart sc " +
+           "LEFT JOIN product p ON p.id = sc.product_id AND p.deleted = 0 " +
+           "SET sc.deleted = 1 " +
+           "WHERE sc.user_id = #{userId} AND sc.deleted = 0 " +
+           "AND (p.id IS NULL OR p.status = 3)")
+    int pruneSoldOrDeletedItems(@Param("userId") Long userId);
+
+    /**
+     * 查询用户购物车中的二手物品ID
+     */
+    @Select("SELECT product_id FROM shopping_cart WHERE user_id = #{userId} AND deleted = 0")
+    List<Long> selectProductIds(@Param("userId") Long userId);
+
+    /**
+     * 批量加入购物车，依赖 (user_id, product_id) 唯一键：已存在时恢复逻辑删除的行，已在购物车中的保持不变
+     */
+    @Insert("<script>" +
+           "INSERT INTO shopping_cart (user_id, product_id, create_time, deleted) VALUES " +
+           "<foreach collection='productIds' item='productId' separator=','>" +
+           "(#{userId}, #{productId}, NOW(), 0)" +
+           "</foreach> " +
+           "ON DUPLICATE KEY UPDATE create_time = IF(deleted = 1, VALUES(create_time), create_time), deleted = 0" +
+           "</script>")
+    int upsertItems(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
+
+    /**
+     * 批量移出购物车（逻辑删除）
+     */
+    @Update("<script>" +
+           "UPDATE shopping_cart SET deleted = 1 " +
+           "WHERE user_id = #{userId} AND deleted = 0 AND product_id IN " +
+           "<foreach collection='productIds' item='productId' open='(' separator=',' close=')'>#{productId}</foreach>" +
+           "</script>")
+    int removeItems(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
 }
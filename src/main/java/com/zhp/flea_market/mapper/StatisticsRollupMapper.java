@@ -0,0 +1,210 @@
+package com.zhp.flea_market.mapper;
+
+import com.zhp.flea_market.model.dto.response.MonthlyStatisticsResponse;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 统计汇总表 Mapper
+ * period_type 取值 day / month，周期起始日期 day 取当天、month 取当月第一天；
+ * 未分类的物品以 category_id = 0 记录
+ */
+@Mapper
+public interface StatisticsRollupMapper {
+
+    // region 增量累加
+
+    /**
+     * 累加分类维度计数器
+     */
+    @Insert("INSERT INTO stat_category_rollup (period_type, period_start, category_id, trade_count, trade_amount, on_sale_count, sold_count) " +
+            "VALUES (#{periodType}, #{periodStart}, #{categoryId}, #{tradeCount}, #{tradeAmount}, #{onSaleCount}, #{soldCount}) " +
+            "ON DUPLICATE KEY UPDATE trade_count = trade_count + VALUES(trade_count), " +
+            "trade_amount = trade_amount + VALUES(trade_amount), " +
+            "on_sale_count = on_sale_count + VALUES(on_sale_count), " +
+            "sold_count = sold_count + VALUES(sold_count)")
+    int upsertCategoryDelta(@Param("periodType") String periodType, @Param("periodStart") LocalDate periodStart,
+                            @Param("categoryId") Long categoryId, @Param("tradeCount") long tradeCount,
+                            @Param("tradeAmount") BigDecimal tradeAmount, @Param("onSaleCount") long onSaleCount,
+                            @Param("soldCount") long soldCount);
+
+    /**
+     * 累加用户维度计数器
+     */
+    @Insert("INSERT INTO stat_user_rollup (period_type, period_start, user_id, trade_count, trade_amount) " +
+            "VALUES (#{periodType}, #{periodStart}, #{userId}, #{tradeCount}, #{tradeAmount}) " +
+            "ON DUPLICATE KEY UPDATE trade_count = trade_count + VALUES(trade_count), " +
+            "trade_amount = trade_amount + VALUES(trade_amount)")
+    int upsertUserDelta(@Param("periodType") String periodType, @Param("periodStart") LocalDate periodStart,
+                        @Param("userId") Long userId, @Param("tradeCount") long tradeCount,
+                        @Param("tradeAmount") BigDecimal tradeAmount);
+
+    // endregion
+
+    // region 月份守护行
+
+    /**
+     * 创建月份守护行（已存在时忽略）
+     */
+    @Insert("INSERT IGNORE INTO stat_rollup_guard (period_start) VALUES (#{monthStart})")
+    int insertGuardIgnore(@Param("monthStart") LocalDate monthStart);
+
+    /**
+     * 读取月份守护行的 epoch 并加共享锁，持有到当前事务结束，期间该月不能开始重建
+     */
+    @Select("SELECT epoch FROM stat_rollup_guard WHERE period_start = #{monthStart} LOCK IN SHARE MODE")
+    Long selectGuardEpochShared(@Param("monthStart") LocalDate monthStart);
+
+    /**
+     * 读取月份守护行的 epoch 并加排他锁，等待持有共享锁的事务提交
+     */
+    @Select("SELECT epoch FROM stat_rollup_guard WHERE period_start = #{monthStart} FOR UPDATE")
+    Long selectGuardEpochForUpdate(@Param("monthStart") LocalDate monthStart);
+
+    /**
+     * 重建开始：epoch 加一并清除待重建标记
+     */
+    @Update("UPDATE stat_rollup_guard SET epoch = epoch + 1, dirty = 0 WHERE period_start = #{monthStart}")
+    int advanceGuardEpoch(@Param("monthStart") LocalDate monthStart);
+
+    /**
+     * 标记月份待重建
+     */
+    @Insert("INSERT INTO stat_rollup_guard (period_start, dirty) VALUES (#{monthStart}, 1) " +
+            "ON DUPLICATE KEY UPDATE dirty = 1")
+    int markGuardDirty(@Param("monthStart") LocalDate monthStart);
+
+    /**
+     * 查询待重建的月份
+     */
+    @Select("SELECT period_start FROM stat_rollup_guard WHERE dirty = 1")
+    List<LocalDate> selectDirtyMonths();
+
+    // endregion
+
+    // region 全量重建
+
+    /**
+     * 删除周期起始日期在 [start, end) 内的分类汇总
+     */
+    @Delete("DELETE FROM stat_category_rollup WHERE period_start >= #{start} AND period_start < #{end}")
+    int deleteCategoryRollup(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    /**
+     * 删除周期起始日期在 [start, end) 内的用户汇总
+     */
+    @Delete("DELETE FROM stat_user_rollup WHERE period_start >= #{start} AND period_start < #{end}")
+    int deleteUserRollup(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    /**
+     * 从订单重建分类交易计数
+     */
+    @Insert("INSERT INTO stat_category_rollup (period_type, period_start, category_id, trade_count, trade_amount) " +
+            "SELECT #{periodType}, CASE WHEN #{periodType} = 'day' THEN DATE(o.finish_time) " +
+            "ELSE DATE_SUB(DATE(o.finish_time), INTERVAL DAYOFMONTH(o.finish_time) - 1 DAY) END AS bucket, " +
+            "COALESCE(p.category_id, 0) AS category_key, COUNT(*), COALESCE(SUM(p.price), 0) " +
+            "FROM market_order o " +
+            "JOIN product p ON p.id = o.product_id AND p.deleted = 0 " +
+            "WHERE o.status = 2 AND o.deleted = 0 " +
+            "AND o.finish_time >= #{startTime} AND o.finish_time < #{endTime} " +
+            "GROUP BY bucket, category_key " +
+            "ON DUPLICATE KEY UPDATE trade_count = VALUES(trade_count), trade_amount = VALUES(trade_amount)")
+    int rebuildCategoryTrade(@Param("periodType") String periodType,
+                             @Param("startTime") Date startTime, @Param("endTime") Date endTime);
+
+    /**
+     * 从物品重建分类在售计数（按发布时间归属周期）
+     */
+    @Insert("INSERT INTO stat_category_rollup (period_type, period_start, category_id, on_sale_count) " +
+            "SELECT #{periodType}, CASE WHEN #{periodType} = 'day' THEN DATE(p.create_time) " +
+            "ELSE DATE_SUB(DATE(p.create_time), INTERVAL DAYOFMONTH(p.create_time) - 1 DAY) END AS bucket, " +
+            "COALESCE(p.category_id, 0) AS category_key, COUNT(*) " +
+            "FROM product p " +
+            "WHERE p.status = 1 AND p.deleted = 0 " +
+            "AND p.create_time >= #{startTime} AND p.create_time < #{endTime} " +
+            "GROUP BY bucket, category_key " +
+            "ON DUPLICATE KEY UPDATE on_sale_count = VALUES(on_sale_count)")
+    int rebuildCategoryOnSale(@Param("periodType") String periodType,
+                              @Param("startTime") Date startTime, @Param("endTime") Date endTime);
+
+    /**
+     * 从物品重建分类已售计数（按更新时间归属周期）
+     */
+    @Insert("INSERT INTO stat_category_rollup (period_type, period_start, category_id, sold_count) " +
+            "SELECT #{periodType}, CASE WHEN #{periodType} = 'day' THEN DATE(p.update_time) " +
+            "ELSE DATE_SUB(DATE(p.update_time), INTERVAL DAYOFMONTH(p.update_time) - 1 DAY) END AS bucket, " +
+            "COALESCE(p.category_id, 0) AS category_key, COUNT(*) " +
+            "FROM product p " +
+            "WHERE p.status = 3 AND p.deleted = 0 " +
+            "AND p.update_time >= #{startTime} AND p.update_time < #{endTime} " +
+            "GROUP BY bucket, category_key " +
+            "ON DUPLICATE KEY UPDATE sold_count = VALUES(sold_count)")
+    int rebuildCategorySold(@Param("periodType") String periodType,
+                            @Param("startTime") Date startTime, @Param("endTime") Date endTime);
+
+    /**
+     * 从订单重建买家交易计数
+     */
+    @Insert("INSERT INTO stat_user_rollup (period_type, period_start, user_id, trade_count, trade_amount) " +
+            "SELECT #{periodType}, CASE WHEN #{periodType} = 'day' THEN DATE(o.finish_time) " +
+            "ELSE DATE_SUB(DATE(o.finish_time), INTERVAL DAYOFMONTH(o.finish_time) - 1 DAY) END AS bucket, " +
+            "o.buyer_id, COUNT(*), COALESCE(SUM(p.price), 0) " +
+            "FROM market_order o " +
+            "JOIN product p ON p.id = o.product_id AND p.deleted = 0 " +
+            "WHERE o.status = 2 AND o.deleted = 0 " +
+            "AND o.finish_time >= #{startTime} AND o.finish_time < #{endTime} " +
+            "GROUP BY bucket, o.buyer_id " +
+            "ON DUPLICATE KEY UPDATE trade_count = VALUES(trade_count), trade_amount = VALUES(trade_amount)")
+    int rebuildUserTrade(@Param("periodType") String periodType,
+                         @Param("startTime") Date startTime, @Param("endTime") Date endTime);
+
+    /**
+     * 查询最早的物品发布时间，作为全量重建的起点
+     */
+    @Select("SELECT MIN(create_time) FROM product")
+    Date selectEarliestActivityTime();
+
+    /**
+     * 汇总表是否已有数据
+     */
+    @Select("SELECT EXISTS(SELECT 1 FROM stat_category_rollup)")
+    boolean existsAnyRollup();
+
+    // endregion
+
+    // region 报表读取
+
+    /**
+     * 读取某月各分类的汇总计数（交易次数、金额、在售量、已售量）
+     */
+    @Select("SELECT NULLIF(r.category_id, 0) AS categoryId, COALESCE(c.name, '未知分类') AS categoryName, " +
+            "r.trade_count AS tradeCount, r.trade_amount AS totalAmount, " +
+            "r.on_sale_count AS onSaleCount, r.sold_count AS soldCount " +
+            "FROM stat_category_rollup r " +
+            "LEFT JOIN category c ON c.id = r.category_id AND c.deleted = 0 " +
+            "WHERE r.period_type = 'month' AND r.period_start = #{monthStart}")
+    List<Map<String, Object>> selectMonthlyCategoryRollup(@Param("monthStart") LocalDate monthStart);
+
+    /**
+     * 读取某月买家交易排行
+     */
+    @Select("SELECT r.user_id AS userId, COALESCE(u.user_name, '未知用户') AS userName, " +
+            "COALESCE(u.user_avatar, '') AS avatar, r.trade_count AS tradeCount, r.trade_amount AS totalAmount " +
+            "FROM stat_user_rollup r " +
+            "LEFT JOIN user u ON u.id = r.user_id AND u.deleted = 0 " +
+            "WHERE r.period_type = 'month' AND r.period_start = #{monthStart} AND r.trade_count > 0 " +
+            "ORDER BY r.trade_count DESC, r.user_id")
+    List<MonthlyStatisticsResponse.UserRankingItem> selectMonthlyUserRanking(@Param("monthStart") LocalDate monthStart);
+
+    // endregion
+}
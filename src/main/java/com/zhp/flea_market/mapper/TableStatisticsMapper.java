@@ -0,0 +1,18 @@
+package com.zhp.flea_market.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 表统计信息 Mapper
+ */
+@Mapper
+public interface TableStatisticsMapper {
+
+    /**
+     * 从 information_schema 读取表的估算行数（InnoDB 统计信息，非精确值）
+     */
+    @Select("SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{tableName}")
+    Long selectEstimatedRows(@Param("tableName") String tableName);
+}
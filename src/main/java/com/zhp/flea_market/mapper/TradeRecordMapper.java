@@ -1,12 +1,38 @@
 package com.zhp.flea_market.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.zhp.flea_market.model.entity.TradeRecord;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.math.BigDecimal;
 
 /**
  * 交易记录 Mapper
  */
 @Mapper
 public interface TradeRecordMapper extends BaseMapper<TradeRecord> {
-}
\ No newline at end of file
+
+    /**
+     * 按条件汇总交易快照金额（自定义SQL不会自动追加逻辑删除条件，由调用方在条件中指定）
+     */
+    @Select("SELECT COALESCE(SUM(amount), 0) FROM trade_record ${ew.customSqlSegment}")
+    BigDecimal selectAmountSum(@Param(Constants.WRAPPER) Wrapper<TradeRecord> wrapper);
+
+    /**
+     * 流式读取交易记录的二手物品ID，逐行交给结果处理器，不在内存中物化整个结果集
+     * 结果集打开期间同一连接不能再执行其他查询，处理器内只做累加
+     */
+    @Select("SELECT id, product_id FROM trade_record ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    @ResultType(TradeRecord.class)
+    void streamProductIds(@Param(Constants.WRAPPER) Wrapper<TradeRecord> wrapper,
+                          ResultHandler<TradeRecord> handler);
+}
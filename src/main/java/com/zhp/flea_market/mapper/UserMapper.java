@@ -5,6 +5,10 @@ import com.zhp.flea_market.model.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
@@ -26,4 +30,35 @@ public interface UserMapper extends BaseMapper<User> {
      */
     @Select("SELECT * FROM user WHERE id = #{id} FOR UPDATE")
     User selectByIdWithLock(Long id);
+
+    /**
+     * 查询令牌应被拒绝的用户ID（已封禁、已禁用或已删除）
+     */
+    @Select("SELECT id FROM user WHERE deleted = 1 OR user_status = 3 OR user_role = 'ban'")
+    List<Long> selectRevokedUserIds();
+
+    /**
+     * 查询所有管理员用户ID
+     */
+    @Select("SELECT id FROM user WHERE deleted = 0 AND user_role = 'admin'")
+    List<Long> selectAdminUserIds();
+
+    /**
+     * 查询单个用户的认证相关状态（包含已逻辑删除的用户）
+     */
+    @Select("SELECT id, user_role, user_status, deleted FROM user WHERE id = #{id}")
+    User selectAuthStateById(@Param("id") Long id);
+
+    /**
+     * 原子增减用户积分，变动后积分为负时不更新（返回影响行数0）
+     */
+    @Update("UPDATE user SET point = COALESCE(point, 0) + #{delta}, update_time = NOW() " +
+           "WHERE id = #{id} AND deleted = 0 AND COALESCE(point, 0) + #{delta} >= 0")
+    int addPoints(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    /**
+     * 查询用户当前积分
+     */
+    @Select("SELECT COALESCE(point, 0) FROM user WHERE id = #{id} AND deleted = 0")
+    BigDecimal selectPointById(@Param("id") Long id);
 }
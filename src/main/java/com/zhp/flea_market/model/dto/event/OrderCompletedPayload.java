@@ -0,0 +1,62 @@
+package com.zhp.flea_market.model.dto.event;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * 订单完成事件内容
+ * 记录完成时的物品价格和支付方式，异步处理时不受之后物品信息修改的影响
+ */
+@Data
+public class OrderCompletedPayload implements Serializable {
+
+    /**
+     * 订单ID
+     */
+    private Long orderId;
+
+    /**
+     * 二手物品ID
+     */
+    private Long productId;
+
+    /**
+     * 二手物品名称
+     */
+    private String productName;
+
+    /**
+     * 买家ID
+     */
+    private Long buyerId;
+
+    /**
+     * 卖家ID
+     */
+    private Long sellerId;
+
+    /**
+     * 成交价格
+     */
+    private BigDecimal price;
+
+    /**
+     * 支付方式
+     */
+    private Integer paymentMethod;
+
+    /**
+     * 支付方式描述
+     */
+    private String paymentMethodDesc;
+
+    /**
+     * 完成时间
+     */
+    private Date finishTime;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,17 @@
+package com.zhp.flea_market.model.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量结算请求
+ */
+@Data
+public class OrderCheckoutRequest {
+
+    /**
+     * 要结算的二手物品ID列表（为空时结算整个购物车）
+     */
+    private List<Long> productIds;
+}
@@ -2,6 +2,7 @@ package com.zhp.flea_market.model.dto.response;
 
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -63,7 +64,7 @@ public class MonthlyStatisticsResponse {
         /**
          * 交易总金额
          */
-        private Double totalAmount;
+        private BigDecimal totalAmount;
     }
 
     /**
@@ -94,7 +95,7 @@ public class MonthlyStatisticsResponse {
         /**
          * 交易总金额
          */
-        private Double totalAmount;
+        private BigDecimal totalAmount;
     }
 
     /**
@@ -0,0 +1,67 @@
+package com.zhp.flea_market.model.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 事务发件箱事件实体
+ */
+@TableName("outbox_event")
+@Data
+public class OutboxEvent {
+
+    /**
+     * 事件ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 事件类型
+     */
+    private String eventType;
+
+    /**
+     * 幂等键
+     */
+    private String idempotencyKey;
+
+    /**
+     * 事件内容（JSON）
+     */
+    private String payload;
+
+    /**
+     * 状态 (0-待处理, 1-已完成, 2-已放弃)
+     */
+    private Integer status;
+
+    /**
+     * 已失败次数
+     */
+    private Integer attempts;
+
+    /**
+     * 下次执行时间
+     */
+    private Date nextAttemptTime;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private Date updateTime;
+}
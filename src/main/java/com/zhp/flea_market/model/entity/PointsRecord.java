@@ -34,6 +34,10 @@ public class PointsRecord {
      */
     private BigDecimal pointsAfter;
 
+    /**
+     * 变动类型 (1-积分兑换支付, 2-取消订单返还, 3-订单完成奖励, 4-管理员调整)
+     */
+    private Integer changeType;
 
     /**
      * 关联的业务ID（如订单ID、评价ID等）
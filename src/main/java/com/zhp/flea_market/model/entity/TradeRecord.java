@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.annotation.*;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.util.Date;
 
 /**
@@ -29,16 +30,51 @@ public class TradeRecord {
      */
     private Long productId;
 
+    /**
+     * 二手物品名称（成交时快照）
+     */
+    private String productName;
+
     /**
      * 买家ID
      */
     private Long buyerId;
 
+    /**
+     * 买家名称（成交时快照）
+     */
+    private String buyerName;
+
     /**
      * 卖家ID
      */
     private Long sellerId;
 
+    /**
+     * 卖家名称（成交时快照）
+     */
+    private String sellerName;
+
+    /**
+     * 交易金额（成交时快照）
+     */
+    private BigDecimal amount;
+
+    /**
+     * 支付方式 (0-现金, 1-微信, 2-积分兑换, 3-物品交换)
+     */
+    private Integer paymentMethod;
+
+    /**
+     * 支付方式描述
+     */
+    private String paymentMethodDesc;
+
+    /**
+     * 交易备注
+     */
+    private String remark;
+
     /**
      * 交易时间
      */
@@ -0,0 +1,52 @@
+package com.zhp.flea_market.model.enums;
+
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * 分页总数统计策略枚举
+ */
+public enum CountStrategyEnum {
+
+    EXACT("精确统计", "exact"),
+    CACHED("缓存统计结果", "cached"),
+    /**
+     * 只对无筛选条件且没有逻辑删除字段的表生效，其余情况按 CACHED 处理
+     */
+    ESTIMATED("按表统计信息估算", "estimated"),
+    NONE("不统计", "none");
+
+    private final String text;
+
+    private final String value;
+
+    CountStrategyEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static CountStrategyEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (CountStrategyEnum anEnum : CountStrategyEnum.values()) {
+            if (anEnum.value.equalsIgnoreCase(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
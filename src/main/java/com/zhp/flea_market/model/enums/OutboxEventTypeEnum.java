@@ -0,0 +1,49 @@
+package com.zhp.flea_market.model.enums;
+
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * 事务发件箱事件类型枚举
+ */
+public enum OutboxEventTypeEnum {
+
+    ORDER_REWARD_POINTS("订单完成发放积分", "order.reward-points"),
+    ORDER_PRODUCT_SOLD("订单完成标记物品已售出", "order.product-sold"),
+    ORDER_TRADE_RECORD("订单完成创建交易记录", "order.trade-record"),
+    ORDER_CART_CLEANUP("订单完成移出购物车", "order.cart-cleanup");
+
+    private final String text;
+
+    private final String value;
+
+    OutboxEventTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static OutboxEventTypeEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (OutboxEventTypeEnum anEnum : OutboxEventTypeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,47 @@
+package com.zhp.flea_market.model.enums;
+
+/**
+ * 积分变动类型枚举
+ */
+public enum PointsChangeTypeEnum {
+
+    ORDER_PAY("积分兑换支付", 1),
+    ORDER_REFUND("取消订单返还", 2),
+    ORDER_REWARD("订单完成奖励", 3),
+    ADMIN_ADJUST("管理员调整", 4);
+
+    private final String text;
+
+    private final Integer value;
+
+    PointsChangeTypeEnum(String text, Integer value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static PointsChangeTypeEnum getEnumByValue(Integer value) {
+        if (value == null) {
+            return null;
+        }
+        for (PointsChangeTypeEnum anEnum : PointsChangeTypeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public Integer getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,41 @@
+package com.zhp.flea_market.model.vo;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 批量结算单项结果视图对象
+ */
+@Data
+public class CheckoutItemVO {
+    /**
+     * 二手物品ID
+     */
+    private Long productId;
+
+    /**
+     * 二手物品名称
+     */
+    private String productName;
+
+    /**
+     * 价格
+     */
+    private BigDecimal price;
+
+    /**
+     * 是否下单成功
+     */
+    private Boolean success;
+
+    /**
+     * 创建的订单ID（下单成功时）
+     */
+    private Long orderId;
+
+    /**
+     * 失败原因（下单失败时）
+     */
+    private String message;
+}
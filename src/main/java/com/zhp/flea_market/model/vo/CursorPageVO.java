@@ -0,0 +1,50 @@
+package com.zhp.flea_market.model.vo;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页视图对象
+ * 以不透明游标代替页码，以 hasMore 代替总数，翻到任意深度的代价与第一页相同
+ */
+@Data
+public class CursorPageVO<T> {
+    /**
+     * 当前页数据
+     */
+    private List<T> records = new ArrayList<>();
+
+    /**
+     * 下一页游标，没有更多数据时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private boolean hasMore;
+
+    /**
+     * 每页大小
+     */
+    private long size;
+
+    /**
+     * 转换当前页数据，保留游标信息
+     *
+     * @param converter 整页转换函数
+     * @param <R> 目标类型
+     * @return 转换后的游标分页结果
+     */
+    public <R> CursorPageVO<R> convert(Function<List<T>, List<R>> converter) {
+        CursorPageVO<R> result = new CursorPageVO<>();
+        result.setRecords(converter.apply(records));
+        result.setNextCursor(nextCursor);
+        result.setHasMore(hasMore);
+        result.setSize(size);
+        return result;
+    }
+}
@@ -55,6 +55,16 @@ public class TradeRecordVO {
      */
     private BigDecimal amount;
 
+    /**
+     * 支付方式 (0-现金, 1-微信, 2-积分兑换, 3-物品交换)
+     */
+    private Integer paymentMethod;
+
+    /**
+     * 支付方式描述
+     */
+    private String paymentMethodDesc;
+
     /**
      * 交易时间
      */
@@ -6,6 +6,8 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.zhp.flea_market.model.dto.request.OrderConfirmRequest;
 import com.zhp.flea_market.model.dto.request.OrderRequest;
 import com.zhp.flea_market.model.entity.Order;
+import com.zhp.flea_market.model.vo.CheckoutItemVO;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.OrderVO;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -26,6 +28,15 @@ public interface OrderService extends IService<Order> {
      */
     Long createOrder(Long productId, HttpServletRequest request);
 
+    /**
+     * 批量结算：一次为多个二手物品创建订单
+     *
+     * @param productIds 二手物品ID列表，为空时结算整个购物车
+     * @param request HTTP请求
+     * @return 每个二手物品的下单结果，顺序与请求一致
+     */
+    List<CheckoutItemVO> checkout(List<Long> productIds, HttpServletRequest request);
+
     /**
      * 支付订单
      *
@@ -44,6 +55,13 @@ public interface OrderService extends IService<Order> {
      */
     boolean cancelOrder(Long orderId, HttpServletRequest request);
 
+    /**
+     * 关闭超时未支付的订单并释放对应的二手物品
+     *
+     * @return 关闭的订单数
+     */
+    int expireUnpaidOrders();
+
     /**
      * 完成订单
      *
@@ -80,6 +98,26 @@ public interface OrderService extends IService<Order> {
      */
     List<Order> getSellerOrders(HttpServletRequest request, Page<Order> page);
 
+    /**
+     * 获取买家订单列表（游标分页）
+     *
+     * @param request HTTP请求
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页订单列表
+     */
+    CursorPageVO<Order> getBuyerOrdersByCursor(HttpServletRequest request, String cursor, long size);
+
+    /**
+     * 获取卖家订单列表（游标分页）
+     *
+     * @param request HTTP请求
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页订单列表
+     */
+    CursorPageVO<Order> getSellerOrdersByCursor(HttpServletRequest request, String cursor, long size);
+
     /**
      * 获取订单统计信息
      *
@@ -0,0 +1,28 @@
+package com.zhp.flea_market.service;
+
+import com.zhp.flea_market.model.entity.OutboxEvent;
+import com.zhp.flea_market.model.enums.OutboxEventTypeEnum;
+
+import java.util.Set;
+
+/**
+ * 事务发件箱事件处理器
+ * 处理方法在分发事务内执行，与事件状态更新一起提交；抛出异常时整体回滚并按退避重试
+ */
+public interface OutboxEventHandler {
+
+    /**
+     * 支持的事件类型
+     *
+     * @return 事件类型集合
+     */
+    Set<OutboxEventTypeEnum> supportedTypes();
+
+    /**
+     * 处理事件
+     *
+     * @param eventType 事件类型
+     * @param event 事件
+     */
+    void handle(OutboxEventTypeEnum eventType, OutboxEvent event);
+}
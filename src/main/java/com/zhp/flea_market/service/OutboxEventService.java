@@ -0,0 +1,37 @@
+package com.zhp.flea_market.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.zhp.flea_market.model.entity.OutboxEvent;
+import com.zhp.flea_market.model.enums.OutboxEventTypeEnum;
+
+/**
+ * 事务发件箱服务
+ */
+public interface OutboxEventService extends IService<OutboxEvent> {
+
+    /**
+     * 在当前事务内写入事件，幂等键已存在时忽略
+     *
+     * @param eventType 事件类型
+     * @param idempotencyKey 幂等键
+     * @param payload 事件内容，序列化为JSON
+     * @return 是否新写入
+     */
+    boolean publish(OutboxEventTypeEnum eventType, String idempotencyKey, Object payload);
+
+    /**
+     * 读取事件内容
+     *
+     * @param event 事件
+     * @param type 内容类型
+     * @return 事件内容
+     */
+    <T> T readPayload(OutboxEvent event, Class<T> type);
+
+    /**
+     * 分发一批到期事件
+     *
+     * @return 处理成功的事件数
+     */
+    int dispatchDueEvents();
+}
@@ -1,9 +1,13 @@
 package com.zhp.flea_market.service;
 
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.zhp.flea_market.model.entity.PointsRecord;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 积分记录服务
@@ -12,15 +16,17 @@ public interface PointsRecordService extends IService<PointsRecord> {
 
     /**
      * 创建积分记录
+     * 记录先进入内存缓冲区，事务提交后按批量写入，不在业务事务内同步插入
      *
      * @param userId 用户ID
      * @param pointsChange 积分变化值
+     * @param pointsAfter 变化后的积分
      * @param changeType 变动类型
      * @param relatedId 关联业务ID
      * @param description 描述
      * @return 是否创建成功
      */
-    boolean createPointsRecord(Long userId, Integer pointsChange, Integer changeType, 
+    boolean createPointsRecord(Long userId, BigDecimal pointsChange, BigDecimal pointsAfter, Integer changeType,
                               Long relatedId, String description);
 
     /**
@@ -31,6 +37,32 @@ public interface PointsRecordService extends IService<PointsRecord> {
      */
     List<PointsRecord> getPointsRecordsByUserId(Long userId);
 
+    /**
+     * 分页获取用户的积分记录
+     *
+     * @param userId 用户ID
+     * @param page 分页参数
+     * @return 积分记录分页列表
+     */
+    Page<PointsRecord> getPointsRecordPage(Long userId, Page<PointsRecord> page);
+
+    /**
+     * 获取用户的积分记录（游标分页）
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页积分记录列表
+     */
+    CursorPageVO<PointsRecord> getPointsRecordsByCursor(Long userId, String cursor, long size);
+
+    /**
+     * 将缓冲区中的积分记录批量写入数据库
+     *
+     * @return 写入的记录数
+     */
+    int flushPendingRecords();
+
     /**
      * 根据业务ID获取积分记录
      *
@@ -39,4 +71,11 @@ public interface PointsRecordService extends IService<PointsRecord> {
      * @return 积分记录
      */
     PointsRecord getPointsRecordByRelatedId(Long relatedId, Integer changeType);
-}
\ No newline at end of file
+
+    /**
+     * 核对用户积分余额与积分流水
+     *
+     * @return 余额不一致的用户（userId, balance, ledgerBalance）
+     */
+    List<Map<String, Object>> reconcileBalances();
+}
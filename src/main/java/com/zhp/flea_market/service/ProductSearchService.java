@@ -0,0 +1,80 @@
+package com.zhp.flea_market.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhp.flea_market.model.entity.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 二手物品全文检索服务接口
+ * 在进程内维护已通过审核二手物品的倒排索引，替代 LIKE '%keyword%' 全表扫描
+ */
+public interface ProductSearchService {
+
+    /**
+     * 关键词检索二手物品
+     *
+     * @param keyword 关键词
+     * @param categoryId 分类ID
+     * @param minPrice 最低价格
+     * @param maxPrice 最高价格
+     * @param paymentMethod 支付方式
+     * @param sortField 排序字段（为空时按相关度排序）
+     * @param sortOrder 排序顺序
+     * @param current 当前页码
+     * @param size 每页大小
+     * @return 命中的二手物品ID分页结果（按排序顺序）
+     */
+    Page<Long> search(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                      Integer paymentMethod, String sortField, String sortOrder, long current, long size);
+
+    /**
+     * 按 (create_time, id) 降序做游标检索，只返回位于游标之后的命中
+     *
+     * @param keyword 关键词
+     * @param categoryId 分类ID
+     * @param minPrice 最低价格
+     * @param maxPrice 最高价格
+     * @param paymentMethod 支付方式
+     * @param afterTime 游标时间（毫秒），首页传null
+     * @param afterId 游标主键
+     * @param limit 最多返回条数
+     * @return 命中的二手物品ID列表
+     */
+    List<Long> searchAfter(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                           Integer paymentMethod, Long afterTime, Long afterId, int limit);
+
+    /**
+     * 索引一个二手物品，非已通过状态或已删除的二手物品会从索引中移除
+     *
+     * @param product 完整的二手物品信息
+     */
+    void index(Product product);
+
+    /**
+     * 从数据库重新加载二手物品并刷新索引，存在事务时在事务提交后执行
+     *
+     * @param productId 二手物品ID
+     */
+    void refresh(Long productId);
+
+    /**
+     * 从索引中移除二手物品，存在事务时在事务提交后执行
+     *
+     * @param productId 二手物品ID
+     */
+    void remove(Long productId);
+
+    /**
+     * 从 product 表全量重建索引
+     */
+    void rebuild();
+
+    /**
+     * 索引是否已构建完成
+     *
+     * @return 是否可用
+     */
+    boolean isReady();
+}
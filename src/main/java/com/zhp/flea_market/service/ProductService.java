@@ -4,10 +4,13 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.zhp.flea_market.model.entity.Product;
+import com.zhp.flea_market.model.enums.CountStrategyEnum;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.ProductVO;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -69,11 +72,29 @@ public interface ProductService extends IService<Product> {
      * @param sortField 排序字段
      * @param sortOrder 排序顺序
      * @param page 分页参数
+     * @param countStrategy 总数统计策略（关键词走检索索引时总数始终精确；搜索总带筛选条件，不支持 ESTIMATED）
      * @return 二手物品列表
      */
     List<Product> advancedSearchProducts(String keyword, Long categoryId, BigDecimal minPrice, 
                                         BigDecimal maxPrice, Integer paymentMethod, String sortField, 
-                                        String sortOrder, Page<Product> page);
+                                        String sortOrder, Page<Product> page,
+                                        CountStrategyEnum countStrategy);
+
+    /**
+     * 高级搜索二手物品（游标分页，按发布时间倒序）
+     *
+     * @param keyword 关键词
+     * @param categoryId 分类ID
+     * @param minPrice 最低价格
+     * @param maxPrice 最高价格
+     * @param paymentMethod 支付方式
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页结果
+     */
+    CursorPageVO<Product> advancedSearchProductsByCursor(String keyword, Long categoryId, BigDecimal minPrice,
+                                                         BigDecimal maxPrice, Integer paymentMethod,
+                                                         String cursor, long size);
 
     /**
      * 获取用户发布的二手物品列表
@@ -94,6 +115,31 @@ public interface ProductService extends IService<Product> {
      */
     boolean updateProductStatus(Long id, Integer status, HttpServletRequest request);
 
+    /**
+     * 下单时抢占二手物品（已上架 -> 已售出的条件更新，不加悲观锁）
+     *
+     * @param id 二手物品ID
+     * @return 是否抢占成功，false 表示物品已不在售
+     */
+    boolean claimProduct(Long id);
+
+    /**
+     * 批量抢占二手物品（须在事务内调用，否则抛出 IllegalTransactionStateException）
+     * 先用一条条件 UPDATE 抢占全部物品；影响行数不一致时回滚到保存点，逐个抢占以确定成功的物品
+     *
+     * @param ids 二手物品ID集合
+     * @return 抢占成功的二手物品ID
+     */
+    List<Long> claimProducts(Collection<Long> ids);
+
+    /**
+     * 批量释放被订单抢占的二手物品（已售出 -> 已上架），用于取消或超时关闭未完成的订单
+     *
+     * @param ids 二手物品ID集合
+     * @return 实际释放的数量
+     */
+    int releaseProducts(Collection<Long> ids);
+
     /**
      * 标记二手物品为已售出（仅限订单完成时调用）
      *
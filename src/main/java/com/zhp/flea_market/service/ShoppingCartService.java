@@ -5,6 +5,7 @@ import com.zhp.flea_market.model.entity.ShoppingCart;
 import com.zhp.flea_market.model.vo.ShoppingCartVO;
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -54,6 +55,14 @@ public interface ShoppingCartService extends IService<ShoppingCart> {
      */
     boolean validateCartItems(HttpServletRequest request);
 
+    /**
+     * 移除购物车中已售出或已删除的商品
+     *
+     * @param request HTTP请求
+     * @return 移除的购物车项数量
+     */
+    int pruneInvalidItems(HttpServletRequest request);
+
     /**
      * 校验单个商品状态
      *
@@ -70,4 +79,36 @@ public interface ShoppingCartService extends IService<ShoppingCart> {
      * @return 是否在购物车中
      */
     boolean isProductInCart(Long productId, HttpServletRequest request);
+
+    /**
+     * 获取购物车商品数量
+     *
+     * @param request HTTP请求
+     * @return 购物车商品数量
+     */
+    int getCartCount(HttpServletRequest request);
+
+    /**
+     * 获取用户购物车中的二手物品ID
+     *
+     * @param userId 用户ID
+     * @return 二手物品ID（升序）
+     */
+    long[] getCartProductIds(Long userId);
+
+    /**
+     * 将二手物品移出用户购物车（下单、订单完成等场景）
+     * 在事务中调用时，事务提交后才生效
+     *
+     * @param userId 用户ID
+     * @param productIds 二手物品ID集合
+     */
+    void removeProductsFromCart(Long userId, Collection<Long> productIds);
+
+    /**
+     * 将所有待写回的购物车变更写入数据库
+     *
+     * @return 写回的用户数
+     */
+    int flushPendingChanges();
 }
\ No newline at end of file
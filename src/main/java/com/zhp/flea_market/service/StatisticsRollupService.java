@@ -0,0 +1,59 @@
+package com.zhp.flea_market.service;
+
+import com.zhp.flea_market.model.entity.Product;
+
+import java.util.Date;
+
+/**
+ * 统计汇总服务接口
+ * 维护按日 / 按月的分类维度和用户维度计数器，订单和物品状态变更在事务提交后增量累加，
+ * 重建任务从原始数据按月全量校正
+ */
+public interface StatisticsRollupService {
+
+    /**
+     * 订单完成：累加分类和买家的交易次数、金额
+     *
+     * @param buyerId 买家ID
+     * @param product 订单对应的二手物品
+     * @param finishTime 完成时间
+     */
+    void onOrderCompleted(Long buyerId, Product product, Date finishTime);
+
+    /**
+     * 二手物品发布
+     *
+     * @param product 已保存的二手物品
+     */
+    void onProductCreated(Product product);
+
+    /**
+     * 二手物品状态变更：维护在售量和已售量
+     *
+     * @param before 变更前的二手物品
+     * @param newStatus 变更后的状态
+     */
+    void onProductStatusChanged(Product before, Integer newStatus);
+
+    /**
+     * 二手物品删除
+     *
+     * @param before 删除前的二手物品
+     */
+    void onProductRemoved(Product before);
+
+    /**
+     * 从原始数据重建指定月份的汇总（包含该月的日汇总）
+     *
+     * @param year 年份
+     * @param month 月份
+     */
+    void rebuildMonth(int year, int month);
+
+    /**
+     * 从最早的数据开始逐月重建全部汇总
+     *
+     * @return 重建的月份数
+     */
+    int rebuildAll();
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.zhp.flea_market.model.entity.TradeRecord;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.TradeRecordVO;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -81,6 +82,26 @@ public interface TradeRecordService extends IService<TradeRecord> {
      */
     Page<TradeRecordVO> getSellerTradeRecords(HttpServletRequest request, Page<TradeRecord> page);
 
+    /**
+     * 获取买家的交易记录列表（游标分页）
+     *
+     * @param request HTTP请求
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页交易记录VO列表
+     */
+    CursorPageVO<TradeRecordVO> getBuyerTradeRecordsByCursor(HttpServletRequest request, String cursor, long size);
+
+    /**
+     * 获取卖家的交易记录列表（游标分页）
+     *
+     * @param request HTTP请求
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页交易记录VO列表
+     */
+    CursorPageVO<TradeRecordVO> getSellerTradeRecordsByCursor(HttpServletRequest request, String cursor, long size);
+
     /**
      * 获取所有交易记录（管理员权限）
      *
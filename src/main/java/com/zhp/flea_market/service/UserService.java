@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.zhp.flea_market.model.dto.request.UserQueryRequest;
 import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.model.enums.PointsChangeTypeEnum;
 import com.zhp.flea_market.model.vo.LoginUserVO;
 import com.zhp.flea_market.model.vo.UserVO;
 import jakarta.servlet.http.HttpServletRequest;
@@ -111,13 +112,17 @@ public interface UserService extends IService<User> {
     User getByIdWithLock(Long id);
 
     /**
-     * 更新用户积分
+     * 更新用户积分并记录积分流水
      *
      * @param userId 用户ID
      * @param points 积分变化值（正数为增加，负数为减少）
-     * @return 是否更新成功
+     * @param changeType 变动类型
+     * @param relatedId 关联业务ID
+     * @param description 变动描述
+     * @return 是否更新成功（扣减后积分为负时返回false）
      */
-    boolean updateUserPoints(Long userId, BigDecimal points);
+    boolean updateUserPoints(Long userId, BigDecimal points, PointsChangeTypeEnum changeType,
+                             Long relatedId, String description);
 
     /**
      * 获取用户积分
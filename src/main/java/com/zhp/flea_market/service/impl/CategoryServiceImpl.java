@@ -1,12 +1,18 @@
 package com.zhp.flea_market.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zhp.flea_market.common.EntityCache;
+import com.zhp.flea_market.common.EntityCacheManager;
 import com.zhp.flea_market.mapper.CategoryMapper;
 import com.zhp.flea_market.model.entity.Category;
 import com.zhp.flea_market.model.vo.CategoryVO;
 import com.zhp.flea_market.service.CategoryService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -14,6 +20,19 @@ import java.util.stream.Collectors;
 @Service
 public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> implements CategoryService {
 
+    @Autowired
+    private EntityCacheManager entityCacheManager;
+
+    /**
+     * 分类实体缓存
+     */
+    private EntityCache<Category> categoryCache;
+
+    @PostConstruct
+    public void initEntityCache() {
+        categoryCache = entityCacheManager.create("category", Category::new);
+    }
+
     /**
      * 获取所有分类信息
      */
@@ -66,4 +85,40 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
         // 删除指定ID的分类
         return this.removeById(id);
     }
-}
\ No newline at end of file
+
+    /**
+     * 按主键查询分类，优先读取实体缓存
+     */
+    @Override
+    public Category getById(Serializable id) {
+        return categoryCache.get(id, key -> super.getById(key));
+    }
+
+    /**
+     * 按主键批量查询分类，只有未命中缓存的主键才查询数据库
+     */
+    @Override
+    public List<Category> listByIds(Collection<? extends Serializable> idList) {
+        return categoryCache.getAll(idList, missing -> super.listByIds(missing), Category::getId);
+    }
+
+    /**
+     * 更新分类并失效实体缓存
+     */
+    @Override
+    public boolean updateById(Category entity) {
+        boolean updated = super.updateById(entity);
+        categoryCache.invalidate(entity.getId());
+        return updated;
+    }
+
+    /**
+     * 删除分类并失效实体缓存
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        categoryCache.invalidate(id);
+        return removed;
+    }
+}
@@ -0,0 +1,109 @@
+package com.zhp.flea_market.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.zhp.flea_market.model.dto.event.OrderCompletedPayload;
+import com.zhp.flea_market.model.entity.OutboxEvent;
+import com.zhp.flea_market.model.entity.TradeRecord;
+import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.model.enums.OutboxEventTypeEnum;
+import com.zhp.flea_market.model.enums.PointsChangeTypeEnum;
+import com.zhp.flea_market.service.OutboxEventHandler;
+import com.zhp.flea_market.service.OutboxEventService;
+import com.zhp.flea_market.service.ProductService;
+import com.zhp.flea_market.service.ShoppingCartService;
+import com.zhp.flea_market.service.TradeRecordService;
+import com.zhp.flea_market.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 订单完成副作用处理器
+ * 积分发放、物品标记已售出、交易记录创建和购物车清理各自作为独立事件重试
+ */
+@Service
+public class OrderCompletionEventHandler implements OutboxEventHandler {
+
+    @Autowired
+    private OutboxEventService outboxEventService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TradeRecordService tradeRecordService;
+
+    @Autowired
+    private ShoppingCartService shoppingCartService;
+
+    @Override
+    public Set<OutboxEventTypeEnum> supportedTypes() {
+        return EnumSet.of(OutboxEventTypeEnum.ORDER_REWARD_POINTS, OutboxEventTypeEnum.ORDER_PRODUCT_SOLD,
+                OutboxEventTypeEnum.ORDER_TRADE_RECORD, OutboxEventTypeEnum.ORDER_CART_CLEANUP);
+    }
+
+    @Override
+    public void handle(OutboxEventTypeEnum eventType, OutboxEvent event) {
+        OrderCompletedPayload payload = outboxEventService.readPayload(event, OrderCompletedPayload.class);
+        switch (eventType) {
+            case ORDER_REWARD_POINTS -> rewardPoints(payload);
+            case ORDER_PRODUCT_SOLD -> productService.markProductAsSold(payload.getProductId());
+            case ORDER_TRADE_RECORD -> createTradeRecord(payload);
+            case ORDER_CART_CLEANUP -> removeProductFromCart(payload.getBuyerId(), payload.getProductId());
+            default -> throw new IllegalStateException("不支持的事件类型: " + eventType);
+        }
+    }
+
+    /**
+     * 订单完成后，除了积分交易或者以物换物，给买家增加价格乘以十分之一的积分
+     */
+    private void rewardPoints(OrderCompletedPayload payload) {
+        Integer paymentMethod = payload.getPaymentMethod();
+        if (payload.getPrice() == null || paymentMethod == null || paymentMethod == 2 || paymentMethod == 3) {
+            return;
+        }
+        userService.updateUserPoints(payload.getBuyerId(), payload.getPrice().multiply(new BigDecimal("0.1")),
+                PointsChangeTypeEnum.ORDER_REWARD, payload.getOrderId(), "订单完成奖励积分");
+    }
+
+    /**
+     * 创建交易记录（同一订单已有交易记录时跳过）
+     */
+    private void createTradeRecord(OrderCompletedPayload payload) {
+        QueryWrapper<TradeRecord> existsWrapper = new QueryWrapper<>();
+        existsWrapper.eq("order_id", payload.getOrderId());
+        if (tradeRecordService.count(existsWrapper) > 0) {
+            return;
+        }
+
+        User buyer = userService.getById(payload.getBuyerId());
+        User seller = userService.getById(payload.getSellerId());
+        tradeRecordService.createTradeRecord(
+                payload.getOrderId(),
+                payload.getProductId(),
+                payload.getProductName(),
+                payload.getBuyerId(),
+                buyer != null ? buyer.getUserName() : null,
+                payload.getSellerId(),
+                seller != null ? seller.getUserName() : null,
+                payload.getPrice(),
+                payload.getPaymentMethod(),
+                payload.getPaymentMethodDesc(),
+                "订单完成自动创建交易记录"
+        );
+    }
+
+    /**
+     * 从购物车中移除已购买的商品
+     */
+    private void removeProductFromCart(Long userId, Long productId) {
+        shoppingCartService.removeProductsFromCart(userId, Collections.singletonList(productId));
+    }
+}
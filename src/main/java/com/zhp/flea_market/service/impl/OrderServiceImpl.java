@@ -3,29 +3,52 @@ package com.zhp.flea_market.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.zhp.flea_market.common.ErrorCode;
 import com.zhp.flea_market.exception.BusinessException;
 import com.zhp.flea_market.mapper.OrderMapper;
+import com.zhp.flea_market.model.dto.event.OrderCompletedPayload;
 import com.zhp.flea_market.model.dto.request.OrderConfirmRequest;
 import com.zhp.flea_market.model.dto.request.OrderRequest;
 import com.zhp.flea_market.model.entity.Order;
 import com.zhp.flea_market.model.entity.Product;
-import com.zhp.flea_market.model.entity.ShoppingCart;
 import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.model.enums.OutboxEventTypeEnum;
+import com.zhp.flea_market.model.enums.PointsChangeTypeEnum;
+import com.zhp.flea_market.model.vo.CheckoutItemVO;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.OrderVO;
 import com.zhp.flea_market.service.*;
 import com.zhp.flea_market.utils.PageUtils;
+import com.zhp.flea_market.utils.PrefetchUtils;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements OrderService {
 
@@ -36,12 +59,56 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     private ProductService productService;
     
     @Autowired
-    @Lazy
-    private TradeRecordService tradeRecordService;
-    
+    private OutboxEventService outboxEventService;
+
     @Autowired
     private ShoppingCartService shoppingCartService;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 未支付订单的保留时间（分钟），超时后自动关闭并释放物品，0 表示不关闭
+     */
+    @Value("${order.expiry.unpaid-ttl-minutes:30}")
+    private long unpaidTtlMinutes;
+
+    /**
+     * 每批关闭的超时订单数
+     */
+    @Value("${order.expiry.batch-size:100}")
+    private int expiryBatchSize;
+
+    /**
+     * 单次结算的最大物品数
+     */
+    @Value("${order.checkout.max-items:50}")
+    private int checkoutMaxItems;
+
+    @Autowired
+    private StatisticsRollupService statisticsRollupService;
+
+    /**
+     * 买家订单统计缓存时间（秒），0 表示不缓存
+     */
+    @Value("${order.statistics-cache-seconds:10}")
+    private long statisticsCacheSeconds;
+
+    /**
+     * 买家ID -> 订单统计信息
+     */
+    private Cache<Long, OrderRequest> orderStatisticsCache;
+
+    @PostConstruct
+    public void initOrderStatisticsCache() {
+        if (statisticsCacheSeconds > 0) {
+            orderStatisticsCache = Caffeine.newBuilder()
+                    .maximumSize(10_000)
+                    .expireAfterWrite(Duration.ofSeconds(statisticsCacheSeconds))
+                    .build();
+        }
+    }
+
     /**
      * 创建订单
      * @param productId 二手物品ID
@@ -68,6 +135,10 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "二手物品不存在");
         }
         
+        // 已被其他买家抢占与抢占失败返回同一种冲突，结果不取决于读到物品状态的时机
+        if (Integer.valueOf(3).equals(product.getStatus())) {
+            throw new BusinessException(ErrorCode.CONFLICT_ERROR, "二手物品已被其他买家下单");
+        }
         if (product.getStatus() != 1) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "二手物品未上架，无法购买");
         }
@@ -93,7 +164,12 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             }
         }
         
-        // 创建订单
+        // 条件更新抢占二手物品，并发下单时只有一个买家成功，其余直接返回冲突
+        if (!productService.claimProduct(productId)) {
+            throw new BusinessException(ErrorCode.CONFLICT_ERROR, "二手物品已被其他买家下单");
+        }
+        
+        // 创建订单（插入失败时事务回滚，抢占一并撤销）
         Order order = new Order();
         order.setProductId(productId);
         order.setBuyerId(currentUser.getId());
@@ -106,15 +182,143 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "订单创建失败");
         }
         
-        // 将商品状态设置为3（已售出）
-        Product updateProduct = new Product();
-        updateProduct.setId(productId);
-        updateProduct.setStatus(3); // 已售出
-        productService.updateById(updateProduct);
-        
+        evictOrderStatistics(order.getBuyerId());
         return order.getId();
     }
 
+    /**
+     * 批量结算
+     * 一次查询校验全部物品并合计积分兑换所需积分，用一条条件 UPDATE 抢占物品，再批量插入订单；
+     * 单个物品不满足条件时只标记该项失败，不影响其他物品下单
+     *
+     * @param productIds 二手物品ID列表，为空时结算整个购物车
+     * @param request HTTP请求
+     * @return 每个二手物品的下单结果，顺序与请求一致
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class, timeout = 30)
+    public List<CheckoutItemVO> checkout(List<Long> productIds, HttpServletRequest request) {
+        // 获取当前登录用户
+        User currentUser = userService.getLoginUserPermitNull(request);
+        if (currentUser == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
+        }
+        Long buyerId = currentUser.getId();
+
+        // 未指定物品时结算整个购物车
+        if (productIds == null || productIds.isEmpty()) {
+            productIds = Arrays.stream(shoppingCartService.getCartProductIds(buyerId))
+                    .boxed()
+                    .collect(Collectors.toList());
+            if (productIds.isEmpty()) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "购物车为空");
+            }
+        }
+
+        // 去重并保持请求顺序
+        Set<Long> uniqueIds = new LinkedHashSet<>();
+        for (Long productId : productIds) {
+            if (productId == null || productId <= 0) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "二手物品ID无效");
+            }
+            uniqueIds.add(productId);
+        }
+        if (uniqueIds.size() > checkoutMaxItems) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "单次最多结算" + checkoutMaxItems + "件二手物品");
+        }
+
+        // 一次查询校验全部物品
+        Map<Long, Product> productMap = productService.listByIds(uniqueIds).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        Map<Long, CheckoutItemVO> results = new LinkedHashMap<>();
+        List<Long> pointsProductIds = new ArrayList<>();
+        BigDecimal requiredPoints = BigDecimal.ZERO;
+        for (Long productId : uniqueIds) {
+            Product product = productMap.get(productId);
+            CheckoutItemVO item = new CheckoutItemVO();
+            item.setProductId(productId);
+            item.setSuccess(false);
+            results.put(productId, item);
+            if (product == null) {
+                item.setMessage("二手物品不存在");
+                continue;
+            }
+            item.setProductName(product.getProductName());
+            item.setPrice(product.getPrice());
+
+            Integer paymentMethod = product.getPaymentMethod();
+            if (product.getStatus() != 1) {
+                item.setMessage("二手物品未上架，无法购买");
+            } else if (paymentMethod == null || paymentMethod < 0 || paymentMethod > 3) {
+                item.setMessage("二手物品支付方式设置无效");
+            } else if (product.getUserId() != null && product.getUserId().equals(buyerId)) {
+                item.setMessage("不能购买自己的二手物品");
+            } else {
+                item.setSuccess(true);
+                if (paymentMethod == 2 && product.getPrice() != null) {
+                    pointsProductIds.add(productId);
+                    requiredPoints = requiredPoints.add(product.getPrice());
+                }
+            }
+        }
+
+        // 合计积分兑换物品所需积分，只查询一次余额；不足时积分兑换物品全部不下单
+        if (!pointsProductIds.isEmpty()) {
+            BigDecimal userPoints = userService.getUserPoints(buyerId);
+            if (userPoints == null || userPoints.compareTo(requiredPoints) < 0) {
+                String errorMsg = "积分不足，无法兑换。当前积分：" + (userPoints != null ? userPoints.toString() : "null")
+                        + "，所需积分：" + requiredPoints;
+                for (Long productId : pointsProductIds) {
+                    results.get(productId).setSuccess(false);
+                    results.get(productId).setMessage(errorMsg);
+                }
+            }
+        }
+
+        List<Long> candidateIds = results.values().stream()
+                .filter(CheckoutItemVO::getSuccess)
+                .map(CheckoutItemVO::getProductId)
+                .collect(Collectors.toList());
+        if (candidateIds.isEmpty()) {
+            return new ArrayList<>(results.values());
+        }
+
+        // 一条条件 UPDATE 抢占物品，并发下单时已被抢占的物品标记为失败
+        Set<Long> claimedIds = new HashSet<>(productService.claimProducts(candidateIds));
+        List<Order> orders = new ArrayList<>(claimedIds.size());
+        Date now = new Date();
+        for (Long productId : candidateIds) {
+            if (!claimedIds.contains(productId)) {
+                results.get(productId).setSuccess(false);
+                results.get(productId).setMessage("二手物品已被其他买家下单");
+                continue;
+            }
+            Order order = new Order();
+            order.setProductId(productId);
+            order.setBuyerId(buyerId);
+            order.setSellerId(productMap.get(productId).getUserId());
+            order.setStatus(0); // 待支付
+            order.setCreateTime(now);
+            orders.add(order);
+        }
+
+        // 批量插入订单（失败时事务回滚，抢占一并撤销）
+        if (!orders.isEmpty()) {
+            if (!this.saveBatch(orders)) {
+                throw new BusinessException(ErrorCode.OPERATION_ERROR, "订单创建失败");
+            }
+            for (Order order : orders) {
+                results.get(order.getProductId()).setOrderId(order.getId());
+            }
+
+            // 已下单的物品在事务提交后从购物车移除
+            shoppingCartService.removeProductsFromCart(buyerId, claimedIds);
+
+            evictOrderStatistics(buyerId);
+        }
+        return new ArrayList<>(results.values());
+    }
+
     /**
      * 支付订单
      * @param orderId 订单ID
@@ -156,32 +360,37 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "二手物品已下架或不存在，无法支付");
         }
         
-        // 根据支付方式更新订单状态
-        Order updateOrder = new Order();
-        updateOrder.setId(orderId);
-        
-        // 除积分兑换外，其他支付方式点击即支付成功
-        if (product.getPaymentMethod() == 2) { // 积分兑换
-            // 检查用户积分是否足够
+        // 除积分兑换外，其他支付方式点击即支付成功；积分兑换先检查积分是否足够
+        boolean payWithPoints = product.getPaymentMethod() == 2;
+        if (payWithPoints) {
             BigDecimal userPoints = userService.getUserPoints(currentUser.getId());
             if (userPoints == null || userPoints.compareTo(product.getPrice()) < 0) {
                 String errorMsg = "积分不足，无法支付该订单。当前积分：" + (userPoints != null ? userPoints.toString() : "null") + "，所需积分：" + product.getPrice();
                 log.error(errorMsg);
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, errorMsg);
             }
-            
-            // 扣除用户积分
-            boolean pointsDeducted = userService.updateUserPoints(currentUser.getId(), product.getPrice().negate());
+        }
+        
+        // 以待支付状态为条件更新为已支付，与取消、超时关闭并发时只有一方生效
+        Order updateOrder = new Order();
+        updateOrder.setStatus(1); // 已支付
+        QueryWrapper<Order> statusWrapper = new QueryWrapper<>();
+        statusWrapper.eq("id", orderId).eq("status", 0);
+        if (!this.update(updateOrder, statusWrapper)) {
+            throw new BusinessException(ErrorCode.CONFLICT_ERROR, "订单状态已变化，请刷新后重试");
+        }
+        
+        // 状态更新成功后再扣除积分，扣除失败时事务回滚，订单恢复为待支付
+        if (payWithPoints) {
+            boolean pointsDeducted = userService.updateUserPoints(currentUser.getId(), product.getPrice().negate(),
+                    PointsChangeTypeEnum.ORDER_PAY, orderId, "积分兑换支付订单");
             if (!pointsDeducted) {
                 throw new BusinessException(ErrorCode.OPERATION_ERROR, "积分扣除失败，请重试");
             }
-            
-            updateOrder.setStatus(1); // 已支付
-        } else {
-            updateOrder.setStatus(1); // 已支付
         }
         
-        return this.updateById(updateOrder);
+        evictOrderStatistics(order.getBuyerId());
+        return true;
     }
 
     /**
@@ -218,36 +427,97 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "订单已完成或已取消，无法再次取消");
         }
         
-        // 更新订单状态为已取消
+        // 更新订单状态为已取消（以读取时的状态为条件，与支付、超时关闭并发时只有一方生效）
         Order updateOrder = new Order();
-        updateOrder.setId(orderId);
         updateOrder.setStatus(3); // 已取消
         updateOrder.setFinishTime(new Date());
+        QueryWrapper<Order> statusWrapper = new QueryWrapper<>();
+        statusWrapper.eq("id", orderId).eq("status", order.getStatus());
         
-        boolean updated = this.updateById(updateOrder);
+        boolean updated = this.update(updateOrder, statusWrapper);
+        if (!updated) {
+            throw new BusinessException(ErrorCode.CONFLICT_ERROR, "订单状态已变化，请刷新后重试");
+        }
+        evictOrderStatistics(order.getBuyerId());
 
+        // 已支付的积分兑换订单返还积分（待支付订单尚未扣除积分）
         Product product = productService.getById(order.getProductId());
-        // 如果订单支付方式是积分兑换，返还积分
-        if (updated && product.getPaymentMethod() == 2) {
-            try {
-                // 返还积分给买家
-                userService.updateUserPoints(order.getBuyerId(), product.getPrice());
-            } catch (Exception e) {
-                System.err.println("取消订单时积分返还失败: " + e.getMessage());
-            }
+        if (order.getStatus() == 1 && product != null && product.getPaymentMethod() == 2) {
+            userService.updateUserPoints(order.getBuyerId(), product.getPrice(),
+                    PointsChangeTypeEnum.ORDER_REFUND, orderId, "取消订单返还积分");
         }
         
         // 恢复商品状态为已上架
+        productService.releaseProducts(List.of(order.getProductId()));
+        
+        return true;
+    }
+
+    /**
+     * 关闭超时未支付的订单
+     * 按 (status, create_time) 索引分批扫描，每批在一个事务内用一条条件 UPDATE 取消，再一条 UPDATE 释放对应物品；
+     * 待支付订单尚未扣除积分，无需返还
+     *
+     * @return 关闭的订单数
+     */
+    @Override
+    public int expireUnpaidOrders() {
+        if (unpaidTtlMinutes <= 0) {
+            return 0;
+        }
+        Date deadline = new Date(System.currentTimeMillis() - unpaidTtlMinutes * 60_000L);
+
+        int expired = 0;
+        while (true) {
+            List<Order> batch = this.baseMapper.selectExpiredUnpaidOrders(deadline, expiryBatchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            Integer cancelled = transactionTemplate.execute(status -> cancelExpiredBatch(batch));
+            expired += cancelled != null ? cancelled : 0;
+            if (batch.size() < expiryBatchSize) {
+                break;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 定时关闭超时未支付的订单
+     */
+    @Scheduled(fixedDelayString = "${order.expiry.sweep-interval-ms:60000}")
+    public void scheduledExpireUnpaidOrders() {
         try {
-            Product updateProduct = new Product();
-            updateProduct.setId(order.getProductId());
-            updateProduct.setStatus(1);
-            productService.updateById(updateProduct);
+            int expired = expireUnpaidOrders();
+            if (expired > 0) {
+                log.info("已关闭超时未支付订单{}个", expired);
+            }
         } catch (Exception e) {
-            System.err.println("取消订单时恢复商品状态失败: " + e.getMessage());
+            log.error("关闭超时未支付订单失败: {}", e.getMessage(), e);
         }
-        
-        return updated;
+    }
+
+    /**
+     * 取消一批超时订单并释放物品；已被买家支付或取消的订单跳过
+     * 先锁定仍为待支付的订单，锁定的订单即为本次取消的订单，再用一条条件 UPDATE 整批取消；
+     * 并发支付会等待本事务提交，随后因状态已变化而失败
+     *
+     * @param batch 超时订单
+     * @return 取消的订单数
+     */
+    private int cancelExpiredBatch(List<Order> batch) {
+        List<Long> orderIds = batch.stream().map(Order::getId).collect(Collectors.toList());
+        List<Order> unpaidOrders = this.baseMapper.selectUnpaidOrdersForUpdate(orderIds);
+        if (unpaidOrders.isEmpty()) {
+            return 0;
+        }
+
+        int cancelled = this.baseMapper.cancelUnpaidOrders(
+                unpaidOrders.stream().map(Order::getId).collect(Collectors.toList()));
+        productService.releaseProducts(
+                unpaidOrders.stream().map(Order::getProductId).collect(Collectors.toList()));
+        unpaidOrders.stream().map(Order::getBuyerId).distinct().forEach(this::evictOrderStatistics);
+        return cancelled;
     }
 
     /**
@@ -255,7 +525,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
      * @param orderId 订单ID
      */
     @Override
-    @Transactional(rollbackFor = Exception.class, timeout = 60)
+    @Transactional(rollbackFor = Exception.class, timeout = 30)
     public boolean completeOrder(Long orderId, HttpServletRequest request) {
         // 参数校验
         if (orderId == null || orderId <= 0) {
@@ -284,50 +554,21 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "订单未支付，无法确认收货");
         }
         
-        // 更新订单状态为已完成
+        // 更新订单状态为已完成（以已支付为条件，重复确认只有一次生效）
         Order updateOrder = new Order();
-        updateOrder.setId(orderId);
         updateOrder.setStatus(2); // 已完成
         updateOrder.setFinishTime(new Date());
+        QueryWrapper<Order> statusWrapper = new QueryWrapper<>();
+        statusWrapper.eq("id", orderId).eq("status", 1);
         
-        boolean updated = this.updateById(updateOrder);
+        boolean updated = this.update(updateOrder, statusWrapper);
+        evictOrderStatistics(order.getBuyerId());
 
-        // 订单完成后，除了积分交易或者以物换物,给买家增加价格乘以十分之一的积分
+        // 积分发放、物品标记已售出、交易记录和购物车清理写入发件箱，与订单状态同一事务提交，由后台异步执行并重试
         if (updated) {
-            try {
-                // 获取订单对应的商品信息
-                Product product = productService.getById(order.getProductId());
-                if (product.getPaymentMethod() != 2 && product.getPaymentMethod() != 3) {
-                    userService.updateUserPoints(order.getBuyerId(), product.getPrice().multiply(new BigDecimal("0.1")));
-                }
-                // 自动将二手物品标记为已售出
-                productService.markProductAsSold(order.getProductId());
-
-                // 创建交易记录
-                User buyer = userService.getById(order.getBuyerId());
-                User seller = userService.getById(order.getSellerId());
-                String paymentMethodDesc = getPaymentMethodDesc(product.getPaymentMethod());
-
-                tradeRecordService.createTradeRecord(
-                        orderId,
-                        product.getId(),
-                        product.getProductName(),
-                        order.getBuyerId(),
-                        buyer.getUserName(),
-                        order.getSellerId(),
-                        seller.getUserName(),
-                        product.getPrice(),
-                        product.getPaymentMethod(),
-                        paymentMethodDesc,
-                        "订单完成自动创建交易记录"
-                );
-                
-                // 从购物车中移除已购买的商品
-                removeProductFromCart(order.getBuyerId(), order.getProductId());
-            } catch (Exception e) {
-                // 积分更新、交易记录创建和二手物品状态更新失败不影响订单完成状态，但记录日志
-                System.err.println("订单完成时积分更新、交易记录创建或二手物品状态更新失败: " + e.getMessage());
-            }
+            Product product = productService.getById(order.getProductId());
+            statisticsRollupService.onOrderCompleted(order.getBuyerId(), product, updateOrder.getFinishTime());
+            publishOrderCompletedEvents(order, product, updateOrder.getFinishTime());
         }
         
         return updated;
@@ -363,7 +604,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         
         // 转换为VO对象
 
-        return convertToOrderVO(order);
+        return convertToOrderVOList(Collections.singletonList(order)).get(0);
     }
 
     /**
@@ -404,52 +645,118 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     }
 
     /**
-     * 获取订单统计信息
+     * 获取买家订单列表（游标分页）
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页订单列表
      */
     @Override
-    public OrderRequest getOrderStatistics(HttpServletRequest request) {
+    public CursorPageVO<Order> getBuyerOrdersByCursor(HttpServletRequest request, String cursor, long size) {
         // 获取当前登录用户
         User currentUser = userService.getLoginUserPermitNull(request);
         if (currentUser == null) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
         }
         
-        OrderRequest statistics = new OrderRequest();
-        
-        // 获取买家订单统计
-        QueryWrapper<Order> buyerWrapper = new QueryWrapper<>();
-        buyerWrapper.eq("buyer_id", currentUser.getId());
-        statistics.setTotalOrders((int) this.count(buyerWrapper));
-        
-        // 各状态订单数量
-        buyerWrapper.eq("status", 0);
-        statistics.setPendingPaymentOrders((int) this.count(buyerWrapper));
-        
-        buyerWrapper = new QueryWrapper<>();
-        buyerWrapper.eq("buyer_id", currentUser.getId()).eq("status", 1);
-        statistics.setPaidOrders((int) this.count(buyerWrapper));
-        
-        buyerWrapper = new QueryWrapper<>();
-        buyerWrapper.eq("buyer_id", currentUser.getId()).eq("status", 2);
-        statistics.setCompletedOrders((int) this.count(buyerWrapper));
-        
-        buyerWrapper = new QueryWrapper<>();
-        buyerWrapper.eq("buyer_id", currentUser.getId()).eq("status", 3);
-        statistics.setCancelledOrders((int) this.count(buyerWrapper));
+        return PageUtils.getCursorPageResult(this, cursor, size, "create_time",
+                Order::getCreateTime, Order::getId,
+                queryWrapper -> queryWrapper.eq("buyer_id", currentUser.getId()));
+    }
+
+    /**
+     * 获取卖家订单列表（游标分页）
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页订单列表
+     */
+    @Override
+    public CursorPageVO<Order> getSellerOrdersByCursor(HttpServletRequest request, String cursor, long size) {
+        // 获取当前登录用户
+        User currentUser = userService.getLoginUserPermitNull(request);
+        if (currentUser == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
+        }
         
-        // 计算总金额（已完成订单）
-        buyerWrapper = new QueryWrapper<>();
-        buyerWrapper.eq("buyer_id", currentUser.getId()).eq("status", 2);
-        List<Order> completedOrders = this.list(buyerWrapper);
+        return PageUtils.getCursorPageResult(this, cursor, size, "create_time",
+                Order::getCreateTime, Order::getId,
+                queryWrapper -> queryWrapper.eq("seller_id", currentUser.getId()));
+    }
+
+    /**
+     * 获取订单统计信息（按买家短时缓存，订单状态变化时失效）
+     */
+    @Override
+    public OrderRequest getOrderStatistics(HttpServletRequest request) {
+        // 获取当前登录用户
+        User currentUser = userService.getLoginUserPermitNull(request);
+        if (currentUser == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
+        }
         
+        if (orderStatisticsCache == null) {
+            return computeOrderStatistics(currentUser.getId());
+        }
+        return orderStatisticsCache.get(currentUser.getId(), this::computeOrderStatistics);
+    }
+
+    /**
+     * 失效买家的订单统计缓存；事务结束后再失效一次，避免提交前的并发读取把旧值写回缓存
+     *
+     * @param buyerId 买家ID
+     */
+    private void evictOrderStatistics(Long buyerId) {
+        if (orderStatisticsCache == null || buyerId == null) {
+            return;
+        }
+        orderStatisticsCache.invalidate(buyerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    orderStatisticsCache.invalidate(buyerId);
+                }
+            });
+        }
+    }
+
+    /**
+     * 按状态分组的一条聚合查询计算买家订单统计，查询次数与订单数量无关
+     *
+     * @param buyerId 买家ID
+     * @return 订单统计信息
+     */
+    private OrderRequest computeOrderStatistics(Long buyerId) {
+        OrderRequest statistics = new OrderRequest();
+        int totalOrders = 0;
+        int pendingPaymentOrders = 0;
+        int paidOrders = 0;
+        int completedOrders = 0;
+        int cancelledOrders = 0;
         BigDecimal totalAmount = BigDecimal.ZERO;
-        for (Order order : completedOrders) {
-            // 获取订单对应的商品信息以获取金额
-            Product product = productService.getById(order.getProductId());
-            if (product != null && product.getPrice() != null) {
-                totalAmount = totalAmount.add(product.getPrice());
+
+        for (Map<String, Object> row : this.baseMapper.selectBuyerStatusSummary(buyerId)) {
+            int status = ((Number) row.get("status")).intValue();
+            int orderCount = ((Number) row.get("orderCount")).intValue();
+            totalOrders += orderCount;
+            switch (status) {
+                case 0 -> pendingPaymentOrders = orderCount;
+                case 1 -> paidOrders = orderCount;
+                case 2 -> {
+                    completedOrders = orderCount;
+                    // 计算总金额（已完成订单）
+                    totalAmount = new BigDecimal(row.get("totalAmount").toString());
+                }
+                case 3 -> cancelledOrders = orderCount;
+                default -> {
+                }
             }
         }
+
+        statistics.setTotalOrders(totalOrders);
+        statistics.setPendingPaymentOrders(pendingPaymentOrders);
+        statistics.setPaidOrders(paidOrders);
+        statistics.setCompletedOrders(completedOrders);
+        statistics.setCancelledOrders(cancelledOrders);
         statistics.setTotalAmount(totalAmount);
         
         return statistics;
@@ -523,58 +830,18 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
     /**
      * 确认订单（买家确认收货）
+     * 与完成订单走同一流程：以已支付为条件完成订单，积分发放等副作用写入发件箱
      * @param confirmRequest 订单确认请求
      */
     @Override
+    @Transactional(rollbackFor = Exception.class, timeout = 30)
     public boolean confirmOrder(OrderConfirmRequest confirmRequest, HttpServletRequest request) {
         // 参数校验
         if (confirmRequest == null || confirmRequest.getOrderId() == null || confirmRequest.getOrderId() <= 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "订单ID无效");
         }
         
-        // 获取当前登录用户
-        User currentUser = userService.getLoginUserPermitNull(request);
-        if (currentUser == null) {
-            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
-        }
-        
-        // 检查订单是否存在
-        Order order = this.getById(confirmRequest.getOrderId());
-        if (order == null) {
-            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "订单不存在");
-        }
-        
-        // 权限校验：只有买家可以确认收货
-        if (order.getBuyerId() == null || !order.getBuyerId().equals(currentUser.getId())) {
-            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "只有买家可以确认收货");
-        }
-        
-        // 检查订单状态
-        if (order.getStatus() != 1) {
-            throw new BusinessException(ErrorCode.PARAMS_ERROR, "订单状态异常，无法确认");
-        }
-        
-        // 更新订单确认状态
-        Order updateOrder = new Order();
-        updateOrder.setId(confirmRequest.getOrderId());
-        
-        // 买家确认收货，订单直接完成
-        updateOrder.setStatus(2); // 已完成
-        updateOrder.setFinishTime(new Date());
-        
-        // 订单完成后，给买家发放积分（积分支付订单除外）
-        Product product = productService.getById(order.getProductId());
-        if (product != null && product.getPaymentMethod() != 2) { // 2表示积分兑换
-            try {
-                // 计算买家获得的积分：二手物品价格除以10，保留小数点后一位
-                BigDecimal pointsToAdd = product.getPrice().divide(new BigDecimal("10"), 1, RoundingMode.HALF_UP);
-                userService.updateUserPoints(order.getBuyerId(), pointsToAdd);
-            } catch (Exception e) {
-                System.err.println("订单完成时积分发放失败: " + e.getMessage());
-            }
-        }
-        
-        return this.updateById(updateOrder);
+        return completeOrder(confirmRequest.getOrderId(), request);
     }
 
     /**
@@ -593,13 +860,39 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         };
     }
 
+    /**
+     * 将订单实体列表转换为VO对象列表
+     * 二手物品、买家和卖家按整页批量预取，避免逐行查询
+     *
+     * @param orders 订单实体列表
+     * @return 订单VO对象列表
+     */
+    private List<OrderVO> convertToOrderVOList(List<Order> orders) {
+        if (orders == null || orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<Long, Product> productMap = PrefetchUtils.prefetch(productService, Product::getId,
+                orders, Order::getProductId);
+        Map<Long, User> userMap = PrefetchUtils.prefetch(userService, User::getId,
+                orders, Order::getBuyerId, Order::getSellerId);
+        
+        List<OrderVO> orderVOs = new ArrayList<>();
+        for (Order order : orders) {
+            orderVOs.add(convertToOrderVO(order, productMap, userMap));
+        }
+        return orderVOs;
+    }
+
     /**
      * 将订单实体转换为VO对象
      *
      * @param order 订单实体
+     * @param productMap 二手物品ID -> 二手物品
+     * @param userMap 用户ID -> 用户
      * @return 订单VO对象
      */
-    private OrderVO convertToOrderVO(Order order) {
+    private OrderVO convertToOrderVO(Order order, Map<Long, Product> productMap, Map<Long, User> userMap) {
         OrderVO orderVO = new OrderVO();
         
         // 复制基本属性
@@ -613,7 +906,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         orderVO.setFinishTime(order.getFinishTime());
         
         // 获取二手物品信息
-        Product product = productService.getById(order.getProductId());
+        Product product = productMap.get(order.getProductId());
         if (product != null) {
             orderVO.setProductName(product.getProductName());
             orderVO.setProductImage(product.getMainImageUrl());
@@ -622,7 +915,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         }
 
         // 获取买家信息
-        User buyer = userService.getById(order.getBuyerId());
+        User buyer = userMap.get(order.getBuyerId());
         if (buyer != null) {
             orderVO.setBuyerName(buyer.getUserName());
             orderVO.setBuyerAvatar(buyer.getUserAvatar());
@@ -630,7 +923,7 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         }
 
         // 获取卖家信息
-        User seller = userService.getById(order.getSellerId());
+        User seller = userMap.get(order.getSellerId());
         if (seller != null) {
             orderVO.setSellerName(seller.getUserName());
             orderVO.setSellerAvatar(seller.getUserAvatar());
@@ -657,28 +950,30 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     }
 
     /**
-     * 从购物车中移除指定商品
-     * @param userId 用户ID
-     * @param productId 商品ID
+     * 写入订单完成的副作用事件，幂等键按订单和副作用区分
+     *
+     * @param order 订单
+     * @param product 二手物品
+     * @param finishTime 完成时间
      */
-    private void removeProductFromCart(Long userId, Long productId) {
-        try {
-            // 查询用户购物车中是否有该商品
-            QueryWrapper<ShoppingCart> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("user_id", userId);
-            queryWrapper.eq("product_id", productId);
-            
-            ShoppingCart cartItem = shoppingCartService.getOne(queryWrapper);
-            
-            // 如果购物车中有该商品，则删除
-            if (cartItem != null) {
-                boolean removed = shoppingCartService.removeById(cartItem.getId());
-                if (!removed) {
-                    System.err.println("从购物车中移除商品失败，商品ID: " + productId);
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("从购物车中移除商品时发生异常: " + e.getMessage());
+    private void publishOrderCompletedEvents(Order order, Product product, Date finishTime) {
+        OrderCompletedPayload payload = new OrderCompletedPayload();
+        payload.setOrderId(order.getId());
+        payload.setProductId(order.getProductId());
+        payload.setBuyerId(order.getBuyerId());
+        payload.setSellerId(order.getSellerId());
+        payload.setFinishTime(finishTime);
+        if (product != null) {
+            payload.setProductName(product.getProductName());
+            payload.setPrice(product.getPrice());
+            payload.setPaymentMethod(product.getPaymentMethod());
+            payload.setPaymentMethodDesc(getPaymentMethodDesc(product.getPaymentMethod()));
+        }
+
+        for (OutboxEventTypeEnum eventType : List.of(OutboxEventTypeEnum.ORDER_REWARD_POINTS,
+                OutboxEventTypeEnum.ORDER_PRODUCT_SOLD, OutboxEventTypeEnum.ORDER_TRADE_RECORD,
+                OutboxEventTypeEnum.ORDER_CART_CLEANUP)) {
+            outboxEventService.publish(eventType, eventType.getValue() + ":" + order.getId(), payload);
         }
     }
-}
\ No newline at end of file
+}
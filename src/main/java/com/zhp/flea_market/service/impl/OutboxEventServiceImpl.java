@@ -0,0 +1,227 @@
+package com.zhp.flea_market.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zhp.flea_market.common.ErrorCode;
+import com.zhp.flea_market.exception.BusinessException;
+import com.zhp.flea_market.mapper.OutboxEventMapper;
+import com.zhp.flea_market.model.entity.OutboxEvent;
+import com.zhp.flea_market.model.enums.OutboxEventTypeEnum;
+import com.zhp.flea_market.service.OutboxEventHandler;
+import com.zhp.flea_market.service.OutboxEventService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事务发件箱服务实现类
+ * 业务事务内写入事件；后台任务逐条在独立事务中执行处理器并把事件置为已完成，
+ * 处理失败时回滚该事务，记录失败次数并按指数退避重试
+ */
+@Slf4j
+@Service
+public class OutboxEventServiceImpl extends ServiceImpl<OutboxEventMapper, OutboxEvent> implements OutboxEventService {
+
+    /**
+     * 失败原因最大保存长度
+     */
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 处理器依赖订单、用户等业务服务，按需获取避免循环依赖
+     */
+    @Autowired
+    private ObjectProvider<OutboxEventHandler> handlerProvider;
+
+    /**
+     * 每次分发处理的事件数
+     */
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * 最大尝试次数，超过后置为已放弃
+     */
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    /**
+     * 首次重试间隔（秒），之后按2的幂增长
+     */
+    @Value("${outbox.base-backoff-seconds:5}")
+    private long baseBackoffSeconds;
+
+    /**
+     * 最大重试间隔（秒）
+     */
+    @Value("${outbox.max-backoff-seconds:600}")
+    private long maxBackoffSeconds;
+
+    /**
+     * 已完成事件保留天数
+     */
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile Map<OutboxEventTypeEnum, OutboxEventHandler> handlers;
+
+    /**
+     * 在当前事务内写入事件，幂等键已存在时忽略
+     *
+     * @param eventType 事件类型
+     * @param idempotencyKey 幂等键
+     * @param payload 事件内容，序列化为JSON
+     * @return 是否新写入
+     */
+    @Override
+    public boolean publish(OutboxEventTypeEnum eventType, String idempotencyKey, Object payload) {
+        if (eventType == null || StringUtils.isBlank(idempotencyKey)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "事件类型或幂等键无效");
+        }
+        String json;
+        try {
+            json = payload != null ? objectMapper.writeValueAsString(payload) : null;
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "事件内容序列化失败");
+        }
+        return this.baseMapper.insertIgnore(eventType.getValue(), idempotencyKey, json) > 0;
+    }
+
+    /**
+     * 读取事件内容
+     *
+     * @param event 事件
+     * @param type 内容类型
+     * @return 事件内容
+     */
+    @Override
+    public <T> T readPayload(OutboxEvent event, Class<T> type) {
+        try {
+            return objectMapper.readValue(event.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "事件内容解析失败: " + event.getId());
+        }
+    }
+
+    /**
+     * 分发一批到期事件
+     *
+     * @return 处理成功的事件数
+     */
+    @Override
+    public int dispatchDueEvents() {
+        List<OutboxEvent> events = this.baseMapper.selectDueEvents(batchSize);
+        int completed = 0;
+        for (OutboxEvent event : events) {
+            if (dispatch(event)) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * 定时分发到期事件
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void scheduledDispatch() {
+        try {
+            dispatchDueEvents();
+        } catch (Exception e) {
+            log.error("发件箱事件分发失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 每日清理过期的已完成事件
+     */
+    @Scheduled(cron = "${outbox.purge-cron:0 15 4 * * ?}")
+    public void purgeCompletedEvents() {
+        try {
+            Date before = new Date(System.currentTimeMillis() - retentionDays * 24L * 3600 * 1000);
+            int deleted;
+            do {
+                deleted = this.baseMapper.deleteCompletedBefore(before, 1000);
+            } while (deleted > 0);
+        } catch (Exception e) {
+            log.error("发件箱已完成事件清理失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 在独立事务中处理单个事件：先条件置为已完成（并发实例只有一个能成功），再执行处理器
+     *
+     * @return 是否处理成功
+     */
+    private boolean dispatch(OutboxEvent event) {
+        OutboxEventTypeEnum eventType = OutboxEventTypeEnum.getEnumByValue(event.getEventType());
+        OutboxEventHandler handler = eventType != null ? getHandlers().get(eventType) : null;
+        if (handler == null) {
+            recordFailure(event, "没有对应的事件处理器: " + event.getEventType());
+            return false;
+        }
+
+        try {
+            Boolean handled = transactionTemplate.execute(status -> {
+                if (this.baseMapper.markCompleted(event.getId()) == 0) {
+                    return false;
+                }
+                handler.handle(eventType, event);
+                return true;
+            });
+            return Boolean.TRUE.equals(handled);
+        } catch (Exception e) {
+            recordFailure(event, e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+            return false;
+        }
+    }
+
+    /**
+     * 记录失败并安排下次重试
+     */
+    private void recordFailure(OutboxEvent event, String error) {
+        int attempts = event.getAttempts() != null ? event.getAttempts() : 0;
+        long backoffSeconds = Math.min(maxBackoffSeconds, baseBackoffSeconds << Math.min(attempts, 20));
+        Date nextAttemptTime = new Date(System.currentTimeMillis() + backoffSeconds * 1000);
+        String lastError = StringUtils.abbreviate(error, MAX_ERROR_LENGTH);
+        this.baseMapper.markFailed(event.getId(), maxAttempts, nextAttemptTime, lastError);
+
+        if (attempts + 1 >= maxAttempts) {
+            log.error("发件箱事件已放弃 - ID: {}, 类型: {}, 幂等键: {}, 原因: {}",
+                    event.getId(), event.getEventType(), event.getIdempotencyKey(), lastError);
+        } else {
+            log.warn("发件箱事件处理失败，{}秒后重试 - ID: {}, 类型: {}, 原因: {}",
+                    backoffSeconds, event.getId(), event.getEventType(), lastError);
+        }
+    }
+
+    private Map<OutboxEventTypeEnum, OutboxEventHandler> getHandlers() {
+        Map<OutboxEventTypeEnum, OutboxEventHandler> current = handlers;
+        if (current == null) {
+            current = new EnumMap<>(OutboxEventTypeEnum.class);
+            for (OutboxEventHandler handler : handlerProvider) {
+                for (OutboxEventTypeEnum type : handler.supportedTypes()) {
+                    current.put(type, handler);
+                }
+            }
+            handlers = current;
+        }
+        return current;
+    }
+}
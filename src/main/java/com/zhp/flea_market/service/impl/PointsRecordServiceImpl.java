@@ -0,0 +1,314 @@
+package com.zhp.flea_market.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zhp.flea_market.common.ErrorCode;
+import com.zhp.flea_market.exception.BusinessException;
+import com.zhp.flea_market.mapper.PointsRecordMapper;
+import com.zhp.flea_market.model.entity.PointsRecord;
+import com.zhp.flea_market.model.vo.CursorPageVO;
+import com.zhp.flea_market.service.PointsRecordService;
+import com.zhp.flea_market.utils.PageUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 积分记录服务实现类
+ * 积分流水在业务事务提交后进入内存缓冲区，达到批量大小或定时触发时按 JDBC 批量写入
+ */
+@Slf4j
+@Service
+public class PointsRecordServiceImpl extends ServiceImpl<PointsRecordMapper, PointsRecord> implements PointsRecordService {
+
+    @Autowired
+    @Qualifier("pointsLedgerExecutor")
+    private ThreadPoolTaskExecutor pointsLedgerExecutor;
+
+    /**
+     * 每批写入的记录数，缓冲区达到该数量时立即触发写入
+     */
+    @Value("${points.ledger.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 对账时跳过最近多少秒内积分有变动的用户（等待其流水写入）
+     */
+    @Value("${points.ledger.reconcile-quiet-seconds:300}")
+    private int reconcileQuietSeconds;
+
+    /**
+     * 待写入的积分记录
+     */
+    private final ConcurrentLinkedQueue<PointsRecord> pendingRecords = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /**
+     * 保证同一时刻只有一个线程在写出缓冲区
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 创建积分记录
+     * 记录先进入内存缓冲区，事务提交后按批量写入，不在业务事务内同步插入；事务回滚时不产生记录
+     *
+     * @param userId 用户ID
+     * @param pointsChange 积分变化值
+     * @param pointsAfter 变化后的积分
+     * @param changeType 变动类型
+     * @param relatedId 关联业务ID
+     * @param description 描述
+     * @return 是否创建成功
+     */
+    @Override
+    public boolean createPointsRecord(Long userId, BigDecimal pointsChange, BigDecimal pointsAfter, Integer changeType,
+                                      Long relatedId, String description) {
+        if (userId == null || userId <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户ID无效");
+        }
+        if (pointsChange == null || pointsAfter == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "积分变化值无效");
+        }
+
+        PointsRecord pointsRecord = new PointsRecord();
+        pointsRecord.setUserId(userId);
+        pointsRecord.setPointsChange(pointsChange);
+        pointsRecord.setPointsAfter(pointsAfter);
+        pointsRecord.setChangeType(changeType);
+        pointsRecord.setRelatedId(relatedId);
+        pointsRecord.setDescription(description);
+        // 变动发生时间，不取批量写入的时间
+        pointsRecord.setCreateTime(new Date());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(pointsRecord);
+                }
+            });
+        } else {
+            enqueue(pointsRecord);
+        }
+        return true;
+    }
+
+    /**
+     * 获取用户的积分记录列表
+     *
+     * @param userId 用户ID
+     * @return 积分记录列表
+     */
+    @Override
+    public List<PointsRecord> getPointsRecordsByUserId(Long userId) {
+        if (userId == null || userId <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户ID无效");
+        }
+
+        QueryWrapper<PointsRecord> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("user_id", userId);
+        queryWrapper.orderByDesc("create_time", "id");
+        return this.list(queryWrapper);
+    }
+
+    /**
+     * 分页获取用户的积分记录
+     *
+     * @param userId 用户ID
+     * @param page 分页参数
+     * @return 积分记录分页列表
+     */
+    @Override
+    public Page<PointsRecord> getPointsRecordPage(Long userId, Page<PointsRecord> page) {
+        if (userId == null || userId <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户ID无效");
+        }
+
+        QueryWrapper<PointsRecord> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("user_id", userId);
+        queryWrapper.orderByDesc("create_time", "id");
+        return this.page(page, queryWrapper);
+    }
+
+    /**
+     * 获取用户的积分记录（游标分页）
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页积分记录列表
+     */
+    @Override
+    public CursorPageVO<PointsRecord> getPointsRecordsByCursor(Long userId, String cursor, long size) {
+        if (userId == null || userId <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户ID无效");
+        }
+
+        return PageUtils.getCursorPageResult(this, cursor, size, "create_time",
+                PointsRecord::getCreateTime, PointsRecord::getId,
+                queryWrapper -> queryWrapper.eq("user_id", userId));
+    }
+
+    /**
+     * 根据业务ID获取积分记录
+     *
+     * @param relatedId 关联业务ID
+     * @param changeType 变动类型
+     * @return 积分记录
+     */
+    @Override
+    public PointsRecord getPointsRecordByRelatedId(Long relatedId, Integer changeType) {
+        if (relatedId == null || relatedId <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "关联业务ID无效");
+        }
+
+        QueryWrapper<PointsRecord> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("related_id", relatedId);
+        queryWrapper.eq(changeType != null, "change_type", changeType);
+        queryWrapper.orderByDesc("id");
+        queryWrapper.last("LIMIT 1");
+        return this.getOne(queryWrapper);
+    }
+
+    /**
+     * 将缓冲区中的积分记录批量写入数据库
+     *
+     * @return 写入的记录数
+     */
+    @Override
+    public int flushPendingRecords() {
+        flushLock.lock();
+        try {
+            int written = 0;
+            while (true) {
+                List<PointsRecord> batch = new ArrayList<>(batchSize);
+                PointsRecord pointsRecord;
+                while (batch.size() < batchSize && (pointsRecord = pendingRecords.poll()) != null) {
+                    batch.add(pointsRecord);
+                }
+                if (batch.isEmpty()) {
+                    return written;
+                }
+                pendingCount.addAndGet(-batch.size());
+                written += writeBatch(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 核对用户积分余额与积分流水
+     * 先写出缓冲区，再跳过最近有积分变动的用户，避免把尚未落库的流水误判为不一致
+     *
+     * @return 余额不一致的用户（userId, balance, ledgerBalance）
+     */
+    @Override
+    public List<Map<String, Object>> reconcileBalances() {
+        flushPendingRecords();
+        List<Map<String, Object>> mismatches = this.baseMapper.selectBalanceMismatches(reconcileQuietSeconds);
+        for (Map<String, Object> mismatch : mismatches) {
+            log.warn("积分余额与流水不一致 - 用户ID: {}, 账户余额: {}, 流水余额: {}",
+                    mismatch.get("userId"), mismatch.get("balance"), mismatch.get("ledgerBalance"));
+        }
+        return mismatches;
+    }
+
+    /**
+     * 定时写出缓冲区中不足一批的积分记录
+     */
+    @Scheduled(fixedDelayString = "${points.ledger.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        try {
+            flushPendingRecords();
+        } catch (Exception e) {
+            log.error("积分流水定时写入失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 定时核对积分余额与流水
+     */
+    @Scheduled(cron = "${points.reconcile-cron:0 0 4 * * ?}")
+    public void scheduledReconcile() {
+        try {
+            List<Map<String, Object>> mismatches = reconcileBalances();
+            log.info("积分对账完成，不一致用户数: {}", mismatches.size());
+        } catch (Exception e) {
+            log.error("积分对账失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 应用关闭前写出缓冲区
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        int written = flushPendingRecords();
+        if (written > 0) {
+            log.info("应用关闭前写入积分流水{}条", written);
+        }
+    }
+
+    /**
+     * 放入缓冲区，达到批量大小时交给写入线程
+     */
+    private void enqueue(PointsRecord pointsRecord) {
+        pendingRecords.offer(pointsRecord);
+        if (pendingCount.incrementAndGet() >= batchSize) {
+            pointsLedgerExecutor.execute(() -> {
+                try {
+                    flushPendingRecords();
+                } catch (Exception e) {
+                    log.error("积分流水批量写入失败: {}", e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 批量写入一批记录；批量失败时逐条写入，仍失败的记录输出到日志以便补录
+     *
+     * @return 写入成功的记录数
+     */
+    private int writeBatch(List<PointsRecord> batch) {
+        try {
+            this.saveBatch(batch, batchSize);
+            return batch.size();
+        } catch (Exception e) {
+            log.error("积分流水批量写入失败，改为逐条写入: {}", e.getMessage(), e);
+        }
+
+        int written = 0;
+        for (PointsRecord pointsRecord : batch) {
+            try {
+                pointsRecord.setId(null);
+                this.save(pointsRecord);
+                written++;
+            } catch (Exception e) {
+                log.error("积分流水写入失败 - 用户ID: {}, 变化: {}, 变化后: {}, 类型: {}, 关联ID: {}, 时间: {}",
+                        pointsRecord.getUserId(), pointsRecord.getPointsChange(), pointsRecord.getPointsAfter(),
+                        pointsRecord.getChangeType(), pointsRecord.getRelatedId(), pointsRecord.getCreateTime(), e);
+            }
+        }
+        return written;
+    }
+}
@@ -15,6 +15,7 @@ import com.zhp.flea_market.model.vo.ProductCommentVO;
 import com.zhp.flea_market.service.ProductCommentService;
 import com.zhp.flea_market.service.ProductService;
 import com.zhp.flea_market.service.UserService;
+import com.zhp.flea_market.utils.PrefetchUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -142,13 +143,7 @@ public class ProductCommentServiceImpl extends ServiceImpl<ProductCommentMapper,
         List<ProductComment> comments = this.list(queryWrapper);
 
         // 转换为VO
-        List<ProductCommentVO> result = new ArrayList<>();
-        for (ProductComment comment : comments) {
-            ProductCommentVO vo = convertToVO(comment);
-            result.add(vo);
-        }
-
-        return result;
+        return convertToVOList(comments);
     }
 
     /**
@@ -200,9 +195,7 @@ public class ProductCommentServiceImpl extends ServiceImpl<ProductCommentMapper,
         List<ProductComment> allComments = this.list(queryWrapper);
 
         // 转换为VO
-        List<ProductCommentVO> allVOs = allComments.stream()
-                .map(this::convertToVO)
-                .collect(Collectors.toList());
+        List<ProductCommentVO> allVOs = convertToVOList(allComments);
 
         // 构建树形结构
         Map<Long, List<ProductCommentVO>> childrenMap = allVOs.stream()
@@ -222,15 +215,30 @@ public class ProductCommentServiceImpl extends ServiceImpl<ProductCommentMapper,
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 批量转换为VO对象
+     * 留言用户和被回复用户合并为一次批量查询
+     */
+    private List<ProductCommentVO> convertToVOList(List<ProductComment> comments) {
+        Map<Long, User> userMap = PrefetchUtils.prefetch(userService, User::getId,
+                comments, ProductComment::getUserId, ProductComment::getReplyUserId);
+
+        List<ProductCommentVO> result = new ArrayList<>();
+        for (ProductComment comment : comments) {
+            result.add(convertToVO(comment, userMap));
+        }
+        return result;
+    }
+
     /**
      * 转换为VO对象
      */
-    private ProductCommentVO convertToVO(ProductComment comment) {
+    private ProductCommentVO convertToVO(ProductComment comment, Map<Long, User> userMap) {
         ProductCommentVO vo = new ProductCommentVO();
         BeanUtils.copyProperties(comment, vo);
 
         // 设置用户信息
-        User user = userService.getById(comment.getUserId());
+        User user = userMap.get(comment.getUserId());
         if (user != null) {
             vo.setUserName(user.getUserName());
             vo.setUserAvatar(user.getUserAvatar());
@@ -238,7 +246,7 @@ public class ProductCommentServiceImpl extends ServiceImpl<ProductCommentMapper,
 
         // 设置被回复用户信息
         if (comment.getReplyUserId() != null && comment.getReplyUserId() > 0) {
-            User replyUser = userService.getById(comment.getReplyUserId());
+            User replyUser = userMap.get(comment.getReplyUserId());
             if (replyUser != null) {
                 vo.setReplyUserName(replyUser.getUserName());
             }
@@ -0,0 +1,590 @@
+package com.zhp.flea_market.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhp.flea_market.mapper.ProductMapper;
+import com.zhp.flea_market.model.entity.Product;
+import com.zhp.flea_market.service.ProductSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 二手物品全文检索服务实现类
+ * 对已通过审核的二手物品维护进程内倒排索引：中文按二元分词（索引时同时输出单字），
+ * 英文和数字按词切分，名称词项加权，使用 BM25 计算相关度
+ */
+@Service
+@Slf4j
+public class ProductSearchServiceImpl implements ProductSearchService {
+
+    /**
+     * 重建索引时每批加载的行数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * 名称词项的权重（描述为1）
+     */
+    private static final int NAME_WEIGHT = 3;
+
+    private static final double BM25_K1 = 1.2;
+
+    private static final double BM25_B = 0.75;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    @Qualifier("startupTaskExecutor")
+    private ThreadPoolTaskExecutor startupTaskExecutor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private InvertedIndex index = new InvertedIndex();
+
+    private volatile boolean ready = false;
+
+    private volatile boolean rebuilding = false;
+
+    /**
+     * 重建期间发生变更的二手物品ID，重建完成后补偿刷新
+     */
+    private final Set<Long> dirtyDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 应用启动后在后台线程重建索引，重建完成前检索回退到数据库查询
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        startupTaskExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * 从 product 表全量重建索引（按主键分批加载）
+     */
+    @Override
+    public synchronized void rebuild() {
+        long startTime = System.currentTimeMillis();
+        rebuilding = true;
+        dirtyDuringRebuild.clear();
+        try {
+            InvertedIndex freshIndex = new InvertedIndex();
+            long lastId = 0L;
+            while (true) {
+                QueryWrapper<Product> queryWrapper = new QueryWrapper<>();
+                queryWrapper.select("id", "product_name", "description", "price", "category_id",
+                        "payment_method", "status", "create_time");
+                queryWrapper.eq("status", 1);
+                queryWrapper.gt("id", lastId);
+                queryWrapper.orderByAsc("id");
+                queryWrapper.last("LIMIT " + REBUILD_BATCH_SIZE);
+
+                List<Product> batch = productMapper.selectList(queryWrapper);
+                for (Product product : batch) {
+                    freshIndex.add(toDocument(product), analyze(product));
+                }
+                if (batch.size() < REBUILD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+
+            lock.writeLock().lock();
+            try {
+                index = freshIndex;
+                ready = true;
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            // 补偿重建期间发生的变更
+            for (Long productId : dirtyDuringRebuild) {
+                doRefresh(productId);
+            }
+            dirtyDuringRebuild.clear();
+
+            log.info("二手物品检索索引重建完成，文档数: {}，耗时: {}ms",
+                    freshIndex.liveCount, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            rebuilding = false;
+            log.error("二手物品检索索引重建失败: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        runAfterCommit(() -> apply(product.getId(), product));
+    }
+
+    @Override
+    public void refresh(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        runAfterCommit(() -> doRefresh(productId));
+    }
+
+    @Override
+    public void remove(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        runAfterCommit(() -> apply(productId, null));
+    }
+
+    @Override
+    public Page<Long> search(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                             Integer paymentMethod, String sortField, String sortOrder, long current, long size) {
+        Page<Long> result = new Page<>(current, size, 0);
+        result.setRecords(new ArrayList<>());
+
+        List<Hit> hits = match(keyword, categoryId, minPrice, maxPrice, paymentMethod, null, null);
+        hits.sort(getComparator(sortField, sortOrder));
+
+        result.setTotal(hits.size());
+        long from = (current - 1) * size;
+        if (from < hits.size()) {
+            int to = (int) Math.min(hits.size(), from + size);
+            List<Long> ids = new ArrayList<>(to - (int) from);
+            for (Hit hit : hits.subList((int) from, to)) {
+                ids.add(hit.doc.id);
+            }
+            result.setRecords(ids);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> searchAfter(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                  Integer paymentMethod, Long afterTime, Long afterId, int limit) {
+        List<Hit> hits = match(keyword, categoryId, minPrice, maxPrice, paymentMethod, afterTime, afterId);
+        hits.sort(Comparator.comparingLong((Hit hit) -> hit.doc.createTime)
+                .thenComparingLong(hit -> hit.doc.id)
+                .reversed());
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            ids.add(hits.get(i).doc.id);
+        }
+        return ids;
+    }
+
+    /**
+     * 求所有查询词项倒排表的交集并计算相关度
+     *
+     * @param afterTime 游标时间，不为null时只保留 (create_time, id) 位于游标之后的文档
+     * @param afterId 游标主键
+     * @return 命中列表（未排序）
+     */
+    private List<Hit> match(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                            Integer paymentMethod, Long afterTime, Long afterId) {
+        List<Hit> hits = new ArrayList<>();
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(keyword, false)));
+        if (terms.isEmpty()) {
+            return hits;
+        }
+
+        lock.readLock().lock();
+        try {
+            InvertedIndex snapshot = index;
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings postings = snapshot.postings.get(term);
+                if (postings == null || postings.size == 0) {
+                    return hits;
+                }
+                lists.add(postings);
+            }
+            // 从最短的倒排表开始求交集
+            lists.sort(Comparator.comparingInt(p -> p.size));
+
+            int liveCount = Math.max(snapshot.liveCount, 1);
+            double avgLength = snapshot.liveCount == 0 ? 1.0 : (double) snapshot.totalLength / snapshot.liveCount;
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                int df = lists.get(i).size;
+                idf[i] = Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+            }
+
+            Postings first = lists.get(0);
+            int[] cursors = new int[lists.size()];
+            outer:
+            for (int i = 0; i < first.size; i++) {
+                int ordinal = first.ordinals[i];
+                Document doc = snapshot.docs[ordinal];
+                if (doc == null || !matchesFilter(doc, categoryId, minPrice, maxPrice, paymentMethod)) {
+                    continue;
+                }
+                if (afterTime != null && (doc.createTime > afterTime
+                        || (doc.createTime == afterTime && doc.id >= afterId))) {
+                    continue;
+                }
+                double score = bm25(first.freqs[i], idf[0], doc.length, avgLength);
+                for (int j = 1; j < lists.size(); j++) {
+                    Postings postings = lists.get(j);
+                    int pos = Arrays.binarySearch(postings.ordinals, cursors[j], postings.size, ordinal);
+                    if (pos < 0) {
+                        cursors[j] = -pos - 1;
+                        if (cursors[j] >= postings.size) {
+                            break outer;
+                        }
+                        continue outer;
+                    }
+                    cursors[j] = pos;
+                    score += bm25(postings.freqs[pos], idf[j], doc.length, avgLength);
+                }
+                hits.add(new Hit(doc, score));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return hits;
+    }
+
+    /**
+     * 从数据库重新加载二手物品并刷新索引
+     */
+    private void doRefresh(Long productId) {
+        apply(productId, productMapper.selectById(productId));
+    }
+
+    /**
+     * 将二手物品的最新状态写入索引，product为null、未通过或已删除时移除
+     */
+    private void apply(Long productId, Product product) {
+        if (rebuilding) {
+            dirtyDuringRebuild.add(productId);
+        }
+        boolean indexable = product != null
+                && Integer.valueOf(1).equals(product.getStatus())
+                && !Integer.valueOf(1).equals(product.getDeleted());
+        Document doc = indexable ? toDocument(product) : null;
+        Map<String, Integer> termFreqs = indexable ? analyze(product) : null;
+
+        lock.writeLock().lock();
+        try {
+            index.remove(productId);
+            if (indexable) {
+                index.add(doc, termFreqs);
+            }
+            index.compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 存在事务时在事务提交后执行，否则立即执行；索引维护失败不影响业务操作
+     */
+    private void runAfterCommit(Runnable task) {
+        Runnable safeTask = () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("更新二手物品检索索引失败: {}", e.getMessage(), e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeTask.run();
+                }
+            });
+        } else {
+            safeTask.run();
+        }
+    }
+
+    private boolean matchesFilter(Document doc, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                  Integer paymentMethod) {
+        if (categoryId != null && categoryId > 0 && !categoryId.equals(doc.categoryId)) {
+            return false;
+        }
+        if (minPrice != null && minPrice.compareTo(BigDecimal.ZERO) >= 0
+                && (doc.price == null || doc.price.compareTo(minPrice) < 0)) {
+            return false;
+        }
+        if (maxPrice != null && maxPrice.compareTo(BigDecimal.ZERO) >= 0
+                && (doc.price == null || doc.price.compareTo(maxPrice) > 0)) {
+            return false;
+        }
+        return paymentMethod == null || paymentMethod < 0 || paymentMethod > 3
+                || paymentMethod.equals(doc.paymentMethod);
+    }
+
+    private double bm25(int tf, double idf, int docLength, double avgLength) {
+        double norm = tf + BM25_K1 * (1 - BM25_B + BM25_B * docLength / avgLength);
+        return idf * tf * (BM25_K1 + 1) / norm;
+    }
+
+    /**
+     * 排序规则与数据库查询保持一致，未指定排序字段时按相关度降序
+     */
+    private Comparator<Hit> getComparator(String sortField, String sortOrder) {
+        Comparator<Hit> byCreateTimeDesc = Comparator.comparingLong((Hit hit) -> hit.doc.createTime).reversed();
+        Comparator<Hit> byRelevance = Comparator.comparingDouble((Hit hit) -> hit.score).reversed()
+                .thenComparing(byCreateTimeDesc);
+        if (StringUtils.isBlank(sortField)) {
+            return byRelevance;
+        }
+        boolean isAsc = "asc".equalsIgnoreCase(sortOrder);
+        Comparator<Hit> comparator;
+        switch (sortField.toLowerCase()) {
+            case "price":
+                comparator = Comparator.comparing((Hit hit) -> hit.doc.price,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            case "createtime":
+                comparator = Comparator.comparingLong((Hit hit) -> hit.doc.createTime);
+                break;
+            case "name":
+                comparator = Comparator.comparing((Hit hit) -> hit.doc.productName,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            default:
+                return byCreateTimeDesc;
+        }
+        return (isAsc ? comparator : comparator.reversed()).thenComparing(byRelevance);
+    }
+
+    private Document toDocument(Product product) {
+        Document doc = new Document();
+        doc.id = product.getId();
+        doc.productName = product.getProductName();
+        doc.categoryId = product.getCategoryId();
+        doc.price = product.getPrice();
+        doc.paymentMethod = product.getPaymentMethod();
+        doc.createTime = product.getCreateTime() != null ? product.getCreateTime().getTime() : 0L;
+        return doc;
+    }
+
+    /**
+     * 分析二手物品文本，返回 词项 -> 加权词频
+     */
+    private Map<String, Integer> analyze(Product product) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        for (String token : tokenize(product.getProductName(), true)) {
+            termFreqs.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(product.getDescription(), true)) {
+            termFreqs.merge(token, 1, Integer::sum);
+        }
+        return termFreqs;
+    }
+
+    /**
+     * 分词：连续汉字输出二元词（索引时额外输出单字，查询时仅单字串输出单字），
+     * 字母和数字按类型切分为词，其余字符作为分隔符
+     *
+     * @param text 文本
+     * @param forIndex 是否用于建索引
+     * @return 词项列表
+     */
+    private static List<String> tokenize(String text, boolean forIndex) {
+        List<String> tokens = new ArrayList<>();
+        if (StringUtils.isBlank(text)) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder hanRun = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        int wordType = 0;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                flushWord(word, tokens);
+                hanRun.append(c);
+            } else if (Character.isLetterOrDigit(c)) {
+                flushHan(hanRun, tokens, forIndex);
+                int type = Character.isDigit(c) ? 1 : 2;
+                if (word.length() > 0 && type != wordType) {
+                    flushWord(word, tokens);
+                }
+                wordType = type;
+                word.append(c);
+            } else {
+                flushHan(hanRun, tokens, forIndex);
+                flushWord(word, tokens);
+            }
+        }
+        flushHan(hanRun, tokens, forIndex);
+        flushWord(word, tokens);
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushHan(StringBuilder run, List<String> tokens, boolean forIndex) {
+        int length = run.length();
+        if (length == 0) {
+            return;
+        }
+        if (length == 1 || forIndex) {
+            for (int i = 0; i < length; i++) {
+                tokens.add(String.valueOf(run.charAt(i)));
+            }
+        }
+        for (int i = 0; i + 1 < length; i++) {
+            tokens.add(run.substring(i, i + 2));
+        }
+        run.setLength(0);
+    }
+
+    /**
+     * 索引中的文档，只保存过滤和排序需要的字段
+     */
+    private static final class Document {
+        private Long id;
+        private String productName;
+        private Long categoryId;
+        private BigDecimal price;
+        private Integer paymentMethod;
+        private long createTime;
+        private int length;
+    }
+
+    private static final class Hit {
+        private final Document doc;
+        private final double score;
+
+        private Hit(Document doc, double score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+    /**
+     * 倒排表：按文档序号升序排列
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        private void add(int ordinal, int freq) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            ordinals[size] = ordinal;
+            freqs[size] = freq;
+            size++;
+        }
+
+        /**
+         * 按新旧序号映射保留存活文档
+         */
+        private void retain(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int mapped = remap[ordinals[i]];
+                if (mapped >= 0) {
+                    ordinals[kept] = mapped;
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    /**
+     * 倒排索引：文档按追加顺序分配序号，删除时置空（墓碑），墓碑过多时压缩
+     */
+    private static final class InvertedIndex {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<Long, Integer> ordinalById = new HashMap<>();
+        private Document[] docs = new Document[1024];
+        private int docCount;
+        private int liveCount;
+        private long totalLength;
+
+        private void add(Document doc, Map<String, Integer> termFreqs) {
+            if (docCount == docs.length) {
+                docs = Arrays.copyOf(docs, docCount * 2);
+            }
+            int ordinal = docCount++;
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(ordinal, entry.getValue());
+                length += entry.getValue();
+            }
+            doc.length = length;
+            docs[ordinal] = doc;
+            ordinalById.put(doc.id, ordinal);
+            liveCount++;
+            totalLength += length;
+        }
+
+        private void remove(Long id) {
+            Integer ordinal = ordinalById.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            Document doc = docs[ordinal];
+            docs[ordinal] = null;
+            liveCount--;
+            totalLength -= doc.length;
+        }
+
+        /**
+         * 墓碑超过三成时重新分配序号并清理倒排表
+         */
+        private void compactIfNeeded() {
+            if (docCount < 1024 || (docCount - liveCount) * 10 < docCount * 3) {
+                return;
+            }
+            int[] remap = new int[docCount];
+            Document[] compacted = new Document[Math.max(1024, liveCount * 2)];
+            int next = 0;
+            for (int i = 0; i < docCount; i++) {
+                if (docs[i] != null) {
+                    remap[i] = next;
+                    compacted[next] = docs[i];
+                    ordinalById.put(docs[i].id, next);
+                    next++;
+                } else {
+                    remap[i] = -1;
+                }
+            }
+            Iterator<Postings> iterator = postings.values().iterator();
+            while (iterator.hasNext()) {
+                Postings list = iterator.next();
+                list.retain(remap);
+                if (list.size == 0) {
+                    iterator.remove();
+                }
+            }
+            docs = compacted;
+            docCount = next;
+        }
+    }
+}
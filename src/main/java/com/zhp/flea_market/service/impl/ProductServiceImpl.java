@@ -5,35 +5,56 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zhp.flea_market.common.EntityCache;
+import com.zhp.flea_market.common.EntityCacheManager;
 import com.zhp.flea_market.common.ErrorCode;
 import com.zhp.flea_market.exception.BusinessException;
 import com.zhp.flea_market.mapper.ProductMapper;
 import com.zhp.flea_market.model.entity.Category;
 import com.zhp.flea_market.model.entity.Product;
 import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.model.enums.CountStrategyEnum;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.ProductVO;
 import com.zhp.flea_market.service.CategoryService;
 import com.zhp.flea_market.service.ImageStorageService;
+import com.zhp.flea_market.service.ProductSearchService;
 import com.zhp.flea_market.service.ProductService;
+import com.zhp.flea_market.service.StatisticsRollupService;
 import com.zhp.flea_market.service.UserService;
 import com.zhp.flea_market.utils.PageUtils;
+import com.zhp.flea_market.utils.PrefetchUtils;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> implements ProductService {
 
+    /**
+     * 索引命中过期时重新检索的最大次数
+     */
+    private static final int STALE_HIT_RETRIES = 2;
+
     @Autowired
     private UserService userService;
 
@@ -43,6 +64,25 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     @Autowired
     private ImageStorageService imageStorageService;
 
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private StatisticsRollupService statisticsRollupService;
+
+    @Autowired
+    private EntityCacheManager entityCacheManager;
+
+    /**
+     * 二手物品实体缓存
+     */
+    private EntityCache<Product> productCache;
+
+    @PostConstruct
+    public void initEntityCache() {
+        productCache = entityCacheManager.create("product", Product::new);
+    }
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -249,15 +289,91 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
      * @param sortField 排序字段
      * @param sortOrder 排序顺序
      * @param page 分页参数
+     * @param countStrategy 总数统计策略（关键词走检索索引时总数始终精确；搜索总带筛选条件，不支持 ESTIMATED）
      * @return 二手物品列表
      */
     @Override
     public List<Product> advancedSearchProducts(String keyword, Long categoryId, BigDecimal minPrice, 
                                                BigDecimal maxPrice, Integer paymentMethod, String sortField, 
-                                               String sortOrder, Page<Product> page) {
+                                               String sortOrder, Page<Product> page,
+                                               CountStrategyEnum countStrategy) {
+        // 有关键词且检索索引可用时走倒排索引，按相关度排序
+        if (StringUtils.isNotBlank(keyword) && productSearchService.isReady()) {
+            return searchByIndex(keyword, categoryId, minPrice, maxPrice, paymentMethod, sortField, sortOrder, page);
+        }
+        
         QueryWrapper<Product> queryWrapper = new QueryWrapper<>();
+        applySearchFilters(queryWrapper, keyword, categoryId, minPrice, maxPrice, paymentMethod);
+        
+        // 排序处理
+        if (StringUtils.isNotBlank(sortField)) {
+            boolean isAsc = "asc".equalsIgnoreCase(sortOrder);
+            switch (sortField.toLowerCase()) {
+                case "price":
+                    queryWrapper.orderBy(true, isAsc, "price");
+                    break;
+                case "createtime":
+                    queryWrapper.orderBy(true, isAsc, "create_time");
+                    break;
+                case "name":
+                    queryWrapper.orderBy(true, isAsc, "product_name");
+                    break;
+                default:
+                    queryWrapper.orderByDesc("create_time");
+                    break;
+            }
+        } else {
+            queryWrapper.orderByDesc("create_time");
+        }
+        
+        return PageUtils.getPageResult(this, page, queryWrapper, countStrategy);
+    }
+
+    /**
+     * 高级搜索二手物品（游标分页，按发布时间倒序）
+     *
+     * @param keyword 关键词
+     * @param categoryId 分类ID
+     * @param minPrice 最低价格
+     * @param maxPrice 最高价格
+     * @param paymentMethod 支付方式
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页结果
+     */
+    @Override
+    public CursorPageVO<Product> advancedSearchProductsByCursor(String keyword, Long categoryId, BigDecimal minPrice,
+                                                                BigDecimal maxPrice, Integer paymentMethod,
+                                                                String cursor, long size) {
+        // 有关键词且检索索引可用时在索引中按 (create_time, id) 定位游标
+        if (StringUtils.isNotBlank(keyword) && productSearchService.isReady()) {
+            long[] position = PageUtils.decodeCursor(cursor);
+            List<Product> rows;
+            for (int attempt = 0; ; attempt++) {
+                List<Long> ids = productSearchService.searchAfter(keyword, categoryId, minPrice, maxPrice, paymentMethod,
+                        position != null ? position[0] : null, position != null ? position[1] : null, (int) size + 1);
+                List<Long> staleIds = new ArrayList<>();
+                rows = loadIndexHits(ids, staleIds);
+                // 命中中有索引过期的物品时，将其移出索引后重新定位，避免页面不满或误判没有下一页
+                if (staleIds.isEmpty() || attempt >= STALE_HIT_RETRIES) {
+                    break;
+                }
+                evictStaleHits(staleIds);
+            }
+            return PageUtils.buildCursorPage(rows, size, Product::getCreateTime, Product::getId);
+        }
         
-        // 关键词搜索（支持二手物品名称和描述）
+        return PageUtils.getCursorPageResult(this, cursor, size, "create_time",
+                Product::getCreateTime, Product::getId,
+                queryWrapper -> applySearchFilters(queryWrapper, keyword, categoryId, minPrice, maxPrice, paymentMethod));
+    }
+
+    /**
+     * 设置高级搜索的筛选条件（只查询已通过的二手物品）
+     */
+    private void applySearchFilters(QueryWrapper<Product> queryWrapper, String keyword, Long categoryId,
+                                    BigDecimal minPrice, BigDecimal maxPrice, Integer paymentMethod) {
+        // 关键词搜索（索引尚未构建完成时回退到数据库模糊查询）
         if (StringUtils.isNotBlank(keyword)) {
             queryWrapper.and(wrapper -> wrapper
                 .like("product_name", keyword)
@@ -287,30 +403,63 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         
         // 只查询已通过的二手物品
         queryWrapper.eq("status", 1);
-        
-        // 排序处理
-        if (StringUtils.isNotBlank(sortField)) {
-            boolean isAsc = "asc".equalsIgnoreCase(sortOrder);
-            switch (sortField.toLowerCase()) {
-                case "price":
-                    queryWrapper.orderBy(true, isAsc, "price");
-                    break;
-                case "createtime":
-                    queryWrapper.orderBy(true, isAsc, "create_time");
-                    break;
-                case "name":
-                    queryWrapper.orderBy(true, isAsc, "product_name");
-                    break;
-                default:
-                    queryWrapper.orderByDesc("create_time");
-                    break;
+    }
+
+    /**
+     * 通过检索索引搜索二手物品，命中的ID按索引给出的顺序回表加载
+     * 索引相对数据库滞后时（物品已下架、售出或删除），先将过期命中移出索引再重新检索；
+     * 重试后仍有过期命中时从总数中扣除被过滤的条数
+     */
+    private List<Product> searchByIndex(String keyword, Long categoryId, BigDecimal minPrice,
+                                        BigDecimal maxPrice, Integer paymentMethod, String sortField,
+                                        String sortOrder, Page<Product> page) {
+        for (int attempt = 0; ; attempt++) {
+            Page<Long> hits = productSearchService.search(keyword, categoryId, minPrice, maxPrice, paymentMethod,
+                    sortField, sortOrder, page.getCurrent(), page.getSize());
+            List<Long> staleIds = new ArrayList<>();
+            List<Product> products = loadIndexHits(hits.getRecords(), staleIds);
+            if (staleIds.isEmpty() || attempt >= STALE_HIT_RETRIES) {
+                page.setTotal(Math.max(0, hits.getTotal() - staleIds.size()));
+                page.setRecords(products);
+                return products;
             }
-        } else {
-            queryWrapper.orderByDesc("create_time");
+            evictStaleHits(staleIds);
+        }
+    }
+
+    /**
+     * 按索引命中顺序加载在售的二手物品
+     *
+     * @param ids 索引命中的物品ID
+     * @param staleIds 输出参数，收集数据库中已不存在或不再在售的物品ID
+     * @return 在售物品列表
+     */
+    private List<Product> loadIndexHits(List<Long> ids, List<Long> staleIds) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> productMap = this.listByIds(ids).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product, (a, b) -> a));
+        List<Product> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = productMap.get(id);
+            if (product != null && Integer.valueOf(1).equals(product.getStatus())) {
+                products.add(product);
+            } else {
+                staleIds.add(id);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * 将过期命中移出实体缓存并按数据库最新状态刷新索引（不在事务内时立即生效）
+     */
+    private void evictStaleHits(List<Long> staleIds) {
+        for (Long id : staleIds) {
+            productCache.invalidate(id);
+            productSearchService.refresh(id);
         }
-        
-        Page<Product> resultPage = this.page(page, queryWrapper);
-        return resultPage.getRecords();
     }
 
     /**
@@ -378,6 +527,114 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         return this.updateById(updateProduct);
     }
 
+    /**
+     * 下单时抢占二手物品
+     * 以 status = 1 为条件的单条 UPDATE 完成检查和置位，并发下单时只有一个买家的更新生效
+     *
+     * @param id 二手物品ID
+     * @return 是否抢占成功，false 表示物品已不在售
+     */
+    @Override
+    public boolean claimProduct(Long id) {
+        if (id == null || id <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "二手物品ID无效");
+        }
+
+        Product before = this.getById(id);
+        boolean claimed = this.baseMapper.claimProduct(id) > 0;
+        productCache.invalidate(id);
+        if (claimed && before != null) {
+            // 更新成功说明抢占前一定处于已上架状态，缓存中的状态可能已过期
+            before.setStatus(1);
+            productSearchService.refresh(id);
+            statisticsRollupService.onProductStatusChanged(before, 3);
+        }
+        return claimed;
+    }
+
+    /**
+     * 批量抢占二手物品（须在事务内调用，否则抛出 IllegalTransactionStateException）
+     * 先用一条条件 UPDATE 抢占全部物品；影响行数不一致时回滚到保存点，逐个抢占以确定成功的物品
+     *
+     * @param ids 二手物品ID集合
+     * @return 抢占成功的二手物品ID
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> claimProducts(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Product> beforeProducts = this.listByIds(ids);
+        Product claimProduct = new Product();
+        claimProduct.setStatus(3);
+        claimProduct.setUpdateTime(new Date());
+        QueryWrapper<Product> queryWrapper = new QueryWrapper<>();
+        queryWrapper.in("id", ids).eq("status", 1);
+
+        TransactionStatus transactionStatus = TransactionAspectSupport.currentTransactionStatus();
+        Object savepoint = transactionStatus.createSavepoint();
+        List<Long> claimedIds;
+        if (this.baseMapper.update(claimProduct, queryWrapper) == ids.size()) {
+            claimedIds = new ArrayList<>(ids);
+        } else {
+            // 部分物品已不在售，撤销整批更新后逐个抢占
+            transactionStatus.rollbackToSavepoint(savepoint);
+            claimedIds = ids.stream()
+                    .filter(id -> this.baseMapper.claimProduct(id) > 0)
+                    .collect(Collectors.toList());
+        }
+        transactionStatus.releaseSavepoint(savepoint);
+
+        for (Product before : beforeProducts) {
+            productCache.invalidate(before.getId());
+            if (claimedIds.contains(before.getId())) {
+                // 更新成功说明抢占前一定处于已上架状态，缓存中的状态可能已过期
+                before.setStatus(1);
+                productSearchService.refresh(before.getId());
+                statisticsRollupService.onProductStatusChanged(before, 3);
+            }
+        }
+        return claimedIds;
+    }
+
+    /**
+     * 批量释放被订单抢占的二手物品
+     * 变更前状态直接读库（不经过实体缓存），只释放仍处于已售出状态的物品，一条 UPDATE 完成
+     *
+     * @param ids 二手物品ID集合
+     * @return 实际释放的数量
+     */
+    @Override
+    public int releaseProducts(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+
+        List<Product> claimedProducts = this.baseMapper.selectBatchIds(ids).stream()
+                .filter(product -> Integer.valueOf(3).equals(product.getStatus()))
+                .collect(Collectors.toList());
+        if (claimedProducts.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> claimedIds = claimedProducts.stream().map(Product::getId).collect(Collectors.toList());
+        Product updateProduct = new Product();
+        updateProduct.setStatus(1);
+        updateProduct.setUpdateTime(new Date());
+        QueryWrapper<Product> queryWrapper = new QueryWrapper<>();
+        queryWrapper.in("id", claimedIds).eq("status", 3);
+        int released = this.baseMapper.update(updateProduct, queryWrapper);
+
+        for (Product before : claimedProducts) {
+            productCache.invalidate(before.getId());
+            productSearchService.refresh(before.getId());
+            statisticsRollupService.onProductStatusChanged(before, 1);
+        }
+        return released;
+    }
+
     /**
      * 标记二手物品为已售出（仅限订单完成时调用）
      *
@@ -397,6 +654,11 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "二手物品不存在");
         }
         
+        // 下单时已抢占为已售出，重复标记直接视为成功
+        if (product.getStatus() == 3) {
+            return true;
+        }
+
         // 业务校验：只有已通过的二手物品才能标记为已售出
         if (product.getStatus() != 1) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "只有已通过的二手物品才能标记为已售出");
@@ -447,11 +709,13 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     public QueryWrapper<Product> getQueryWrapper(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, Integer status) {
         QueryWrapper<Product> queryWrapper = new QueryWrapper<>();
         
-        // 关键词搜索
+        // 关键词搜索（管理端需要检索待审核和已拒绝的二手物品，这些不在检索索引中，仍使用模糊查询）
         if (StringUtils.isNotBlank(keyword)) {
-            queryWrapper.like("product_name", keyword)
-                       .or()
-                       .like("description", keyword);
+            queryWrapper.and(wrapper -> wrapper
+                .like("product_name", keyword)
+                .or()
+                .like("description", keyword)
+            );
         }
         
         // 分类筛选
@@ -492,7 +756,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
             return null;
         }
         
-        return convertToProductVO(product);
+        return convertToProductVOList(Collections.singletonList(product)).get(0);
     }
 
     /**
@@ -542,10 +806,79 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         }
     }
 
+    /**
+     * 按主键查询二手物品，优先读取实体缓存
+     */
+    @Override
+    public Product getById(Serializable id) {
+        return productCache.get(id, key -> super.getById(key));
+    }
+
+    /**
+     * 按主键批量查询二手物品，只有未命中缓存的主键才查询数据库
+     */
+    @Override
+    public List<Product> listByIds(Collection<? extends Serializable> idList) {
+        return productCache.getAll(idList, missing -> super.listByIds(missing), Product::getId);
+    }
+
+    /**
+     * 保存二手物品并同步检索索引和统计汇总（在事务中执行，统计增量才能与汇总重建互斥）
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean save(Product entity) {
+        boolean saved = super.save(entity);
+        if (saved) {
+            productSearchService.index(entity);
+            statisticsRollupService.onProductCreated(entity);
+        }
+        return saved;
+    }
+
+    /**
+     * 更新二手物品，失效实体缓存、刷新检索索引并维护统计汇总（状态变更、售出、信息修改均经过此处）
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateById(Product entity) {
+        // 状态变更需要变更前的状态维护统计汇总，直接读库（不经过实体缓存，缓存中的状态可能已过期）
+        Product before = entity.getStatus() != null ? this.baseMapper.selectById(entity.getId()) : null;
+        boolean updated = super.updateById(entity);
+        productCache.invalidate(entity.getId());
+        if (updated) {
+            productSearchService.refresh(entity.getId());
+            statisticsRollupService.onProductStatusChanged(before, entity.getStatus());
+        }
+        return updated;
+    }
+
+    /**
+     * 删除二手物品，失效实体缓存、从检索索引中移除并维护统计汇总
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeById(Serializable id) {
+        // 删除前的状态直接读库，用于维护统计汇总
+        Product before = this.baseMapper.selectById(id);
+        boolean removed = super.removeById(id);
+        productCache.invalidate(id);
+        if (removed) {
+            productSearchService.remove(Long.valueOf(String.valueOf(id)));
+            statisticsRollupService.onProductRemoved(before);
+        }
+        return removed;
+    }
+
     /**
      * 将Product实体转换为ProductVO
+     *
+     * @param product 二手物品
+     * @param categoryMap 分类ID -> 分类
+     * @param userMap 用户ID -> 用户
+     * @return 二手物品视图对象
      */
-    private ProductVO convertToProductVO(Product product) {
+    private ProductVO convertToProductVO(Product product, Map<Long, Category> categoryMap, Map<Long, User> userMap) {
         if (product == null) {
             return null;
         }
@@ -555,7 +888,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         
         // 设置分类名称
         if (product.getCategoryId() != null) {
-            Category category = categoryService.getById(product.getCategoryId());
+            Category category = categoryMap.get(product.getCategoryId());
             if (category != null) {
                 productVO.setCategoryName(category.getName());
             }
@@ -563,7 +896,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         
         // 设置用户信息
         if (product.getUserId() != null) {
-            User user = userService.getById(product.getUserId());
+            User user = userMap.get(product.getUserId());
             if (user != null) {
                 productVO.setUserName(user.getUserName());
                 productVO.setUserAvatar(user.getUserAvatar());
@@ -587,6 +920,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
 
     /**
      * 将Product实体列表转换为ProductVO列表
+     * 整页涉及的分类和发布者各用一次 listByIds 批量加载，再在内存中组装
      */
     @Override
     public List<ProductVO> convertToProductVOList(List<Product> productList) {
@@ -594,8 +928,14 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
             return new ArrayList<>();
         }
         
+        // 每种关联实体只查询一次
+        Map<Long, Category> categoryMap = PrefetchUtils.prefetch(categoryService, Category::getId,
+                productList, Product::getCategoryId);
+        Map<Long, User> userMap = PrefetchUtils.prefetch(userService, User::getId,
+                productList, Product::getUserId);
+        
         return productList.stream()
-                .map(this::convertToProductVO)
+                .map(product -> convertToProductVO(product, categoryMap, userMap))
                 .collect(Collectors.toList());
     }
 
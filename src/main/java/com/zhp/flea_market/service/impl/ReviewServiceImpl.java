@@ -10,6 +10,7 @@ import com.zhp.flea_market.model.entity.*;
 import com.zhp.flea_market.model.vo.ReviewVO;
 import com.zhp.flea_market.service.*;
 import com.zhp.flea_market.utils.PageUtils;
+import com.zhp.flea_market.utils.PrefetchUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,8 +18,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 二手物品评价服务实现类
@@ -142,7 +145,7 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
         
         // 转换为VO对象
 
-        return convertToReviewVO(review);
+        return convertToReviewVOList(Collections.singletonList(review)).get(0);
     }
 
     /**
@@ -208,7 +211,7 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
             return null;
         }
         
-        return convertToReviewVO(review);
+        return convertToReviewVOList(Collections.singletonList(review)).get(0);
     }
 
     /**
@@ -281,9 +284,11 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
      * 将评价实体转换为VO对象
      *
      * @param review 评价实体
+     * @param userMap 用户ID -> 用户
+     * @param productMap 二手物品ID -> 二手物品
      * @return 评价VO对象
      */
-    private ReviewVO convertToReviewVO(Review review) {
+    private ReviewVO convertToReviewVO(Review review, Map<Long, User> userMap, Map<Long, Product> productMap) {
         ReviewVO reviewVO = new ReviewVO();
         
         // 复制基本属性
@@ -297,14 +302,14 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
 
         
         // 获取用户信息
-        User user = userService.getById(review.getUserId());
+        User user = userMap.get(review.getUserId());
         if (user != null) {
             reviewVO.setUserName(user.getUserName());
             reviewVO.setUserAvatar(user.getUserAvatar());
         }
         
         // 获取二手物品信息
-        Product product = productService.getById(review.getProductId());
+        Product product = productMap.get(review.getProductId());
         if (product != null) {
             reviewVO.setProductName(product.getProductName());
         }
@@ -314,6 +319,7 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
     
     /**
      * 将评价实体列表转换为VO对象列表
+     * 评价用户和二手物品按整页批量预取，避免逐行查询
      *
      * @param reviews 评价实体列表
      * @return 评价VO对象列表
@@ -323,9 +329,14 @@ public class ReviewServiceImpl extends ServiceImpl<ReviewMapper, Review> impleme
             return new ArrayList<>();
         }
         
+        Map<Long, User> userMap = PrefetchUtils.prefetch(userService, User::getId,
+                reviews, Review::getUserId);
+        Map<Long, Product> productMap = PrefetchUtils.prefetch(productService, Product::getId,
+                reviews, Review::getProductId);
+        
         List<ReviewVO> reviewVOs = new ArrayList<>();
         for (Review review : reviews) {
-            reviewVOs.add(convertToReviewVO(review));
+            reviewVOs.add(convertToReviewVO(review, userMap, productMap));
         }
         
         return reviewVOs;
@@ -1,8 +1,9 @@
 package com.zhp.flea_market.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.zhp.flea_market.common.ErrorCode;
 import com.zhp.flea_market.exception.BusinessException;
 import com.zhp.flea_market.mapper.ShoppingCartMapper;
@@ -13,27 +14,79 @@ import com.zhp.flea_market.model.vo.ShoppingCartVO;
 import com.zhp.flea_market.service.ProductService;
 import com.zhp.flea_market.service.ShoppingCartService;
 import com.zhp.flea_market.service.UserService;
-import com.zhp.flea_market.utils.PageUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
-import org.springframework.beans.BeanUtils;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.CollectionUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * 购物车服务实现类
+ * 每个用户的购物车在内存中保存为有序的二手物品ID数组，读请求不访问数据库；
+ * 加入和移出先改内存，再由定时任务批量写回（写后持久化），读取完整购物车前先写回该用户的变更
+ */
+@Slf4j
 @Service
 public class ShoppingCartServiceImpl extends ServiceImpl<ShoppingCartMapper, ShoppingCart> implements ShoppingCartService {
 
+    private static final long[] EMPTY_CART = new long[0];
+
     @Autowired
     private UserService userService;
 
     @Autowired
     private ProductService productService;
 
+    /**
+     * 缓存的用户购物车数上限
+     */
+    @Value("${cart.cache.max-users:50000}")
+    private long cacheMaxUsers;
+
+    /**
+     * 用户购物车在未访问多少分钟后从内存移除
+     */
+    @Value("${cart.cache.expire-minutes:30}")
+    private long cacheExpireMinutes;
+
+    /**
+     * 用户ID -> 购物车中的二手物品ID（升序，数组不可变，变更时整体替换）
+     */
+    private Cache<Long, long[]> cartCache;
+
+    /**
+     * 尚未写回数据库的变更：用户ID -> (二手物品ID -> true 加入 / false 移出)，同一物品只保留最后一次变更
+     */
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, Boolean>> pendingChanges = new ConcurrentHashMap<>();
+
+    /**
+     * 写回与从数据库加载互斥，保证加载结果叠加的待写回变更与数据库状态一致
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @PostConstruct
+    public void initCartCache() {
+        cartCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxUsers)
+                .expireAfterAccess(Duration.ofMinutes(cacheExpireMinutes))
+                .build();
+    }
+
     /**
      * 添加二手物品到购物车
      *
@@ -42,7 +95,6 @@ public class ShoppingCartServiceImpl extends ServiceImpl<ShoppingCartMapper, Sho
      * @return 是否添加成功
      */
     @Override
-    @Transactional
     public boolean addToCart(Long productId, HttpServletRequest request) {
         // 参数校验
         if (productId == null || productId <= 0) {
@@ -70,22 +122,11 @@ public class ShoppingCartServiceImpl extends ServiceImpl<ShoppingCartMapper, Sho
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "不能添加自己发布的商品到购物车");
         }
         
-        // 检查二手物品是否已在购物车中
-        QueryWrapper<ShoppingCart> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_id", currentUser.getId());
-        queryWrapper.eq("product_id", productId);
-        ShoppingCart existingCartItem = this.getOne(queryWrapper);
-        
-        if (existingCartItem != null) {
+        // 唯一键保证数据库中不会重复，内存中原子地判断并加入，写回时按唯一键 upsert
+        if (!applyChange(currentUser.getId(), productId, true)) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "该物品已添加到购物车");
-        } else {
-            // 创建新的购物车项
-            ShoppingCart cartItem = new ShoppingCart();
-            cartItem.setUserId(currentUser.getId());
-            cartItem.setProductId(productId);
-
-            return this.save(cartItem);
         }
+        return true;
     }
 
     /**
@@ -96,7 +137,6 @@ public class ShoppingCartServiceImpl extends ServiceImpl<ShoppingCartMapper, Sho
      * @return 是否删除成功
      */
     @Override
-    @Transactional
     public boolean removeFromCart(Long cartId, HttpServletRequest request) {
         // 参数校验
         if (cartId == null || cartId <= 0) {
@@ -120,7 +160,8 @@ public class ShoppingCartServiceImpl extends ServiceImpl<ShoppingCartMapper, Sho
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限删除该购物车项");
         }
         
-        return this.removeById(cartId);
+        applyChange(currentUser.getId(), cartItem.getProductId(), false);
+        return true;
     }
 
     /**
@@ -137,14 +178,16 @@ public class ShoppingCartServiceImpl extends ServiceImpl<ShoppingCartMapper, Sho
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
         }
         
-        return PageUtils.getPageResult(this, new Page<>(), queryWrapper -> {
-            queryWrapper.eq("user_id", currentUser.getId());
-            queryWrapper.orderByDesc("create_time");
-        });
+        flushUserChanges(currentUser.getId());
+        QueryWrapper<ShoppingCart> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("user_id", currentUser.getId());
+        queryWrapper.orderByDesc("create_time", "id");
+        return this.list(queryWrapper);
     }
 
     /**
      * 获取用户购物车列表（包含商品信息）
+     * 购物车、二手物品和卖家信息由一条关联查询取回，查询次数与购物车大小无关
      *
      * @param request HTTP请求
      * @return 购物车视图对象列表
@@ -157,41 +200,13 @@ public class ShoppingCartServiceImpl extends ServiceImpl<ShoppingCartMapper, Sho
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
         }
 
-        // 获取购物车列表
-        List<ShoppingCart> cartList = this.getUserCart(request);
-        if (CollectionUtils.isEmpty(cartList)) {
-            return new ArrayList<>();
-        }
-
-        // 转换为视图对象
-        return cartList.stream().map(cartItem -> {
-            ShoppingCartVO cartVO = new ShoppingCartVO();
-            BeanUtils.copyProperties(cartItem, cartVO);
-            
-            // 获取商品信息
-            Product product = productService.getById(cartItem.getProductId());
-            if (product != null) {
-                cartVO.setProductName(product.getProductName());
-                cartVO.setMainImageUrl(product.getMainImageUrl());
-                cartVO.setPrice(product.getPrice());
-                cartVO.setDescription(product.getDescription());
-                cartVO.setPaymentMethod(product.getPaymentMethod());
-                cartVO.setProductStatus(product.getStatus());
-                
-                // 获取卖家信息
-                User seller = userService.getById(product.getUserId());
-                if (seller != null) {
-                    cartVO.setSellerName(seller.getUserName());
-                    cartVO.setSellerAvatar(seller.getUserAvatar());
-                }
-            }
-            
-            return cartVO;
-        }).collect(Collectors.toList());
+        flushUserChanges(currentUser.getId());
+        return this.baseMapper.selectCartWithProduct(currentUser.getId());
     }
 
     /**
      * 校验购物车商品状态
+     * 一条关联查询统计不可购买的项（物品已删除或不是已上架状态）
      *
      * @param request HTTP请求
      * @return 是否所有商品状态正常
@@ -204,20 +219,36 @@ public class ShoppingCartServiceImpl extends ServiceImpl<ShoppingCartMapper, Sho
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
         }
 
-        // 获取购物车列表
-        List<ShoppingCart> cartList = this.getUserCart(request);
-        if (CollectionUtils.isEmpty(cartList)) {
-            return true; // 空购物车视为正常
+        // 空购物车视为正常
+        if (getCartProductIds(currentUser.getId()).length == 0) {
+            return true;
         }
+        flushUserChanges(currentUser.getId());
+        return this.baseMapper.countUnavailableItems(currentUser.getId()) == 0;
+    }
 
-        // 校验每个商品状态
-        for (ShoppingCart cartItem : cartList) {
-            if (!validateProductStatus(cartItem.getProductId())) {
-                return false;
-            }
+    /**
+     * 移除购物车中已售出或已删除的商品
+     * 一条关联更新批量移除，不逐项查询物品
+     *
+     * @param request HTTP请求
+     * @return 移除的购物车项数量
+     */
+    @Override
+    public int pruneInvalidItems(HttpServletRequest request) {
+        // 获取当前登录用户
+        User currentUser = userService.getLoginUserPermitNull(request);
+        if (currentUser == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
         }
-        
-        return true;
+
+        flushUserChanges(currentUser.getId());
+        int removed = this.baseMapper.pruneSoldOrDeletedItems(currentUser.getId());
+        if (removed > 0) {
+            // 重新加载时会叠加清理期间新产生的待写回变更
+            cartCache.invalidate(currentUser.getId());
+        }
+        return removed;
     }
 
     /**
@@ -279,13 +310,242 @@ public class ShoppingCartServiceImpl extends ServiceImpl<ShoppingCartMapper, Sho
             return false; // 未登录用户视为商品不在购物车
         }
         
-        // 查询购物车中是否存在该商品
-        QueryWrapper<ShoppingCart> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_id", currentUser.getId());
-        queryWrapper.eq("product_id", productId);
-        ShoppingCart cartItem = this.getOne(queryWrapper);
-        
-        return cartItem != null;
+        // 从内存中的购物车判断，不查询数据库
+        return Arrays.binarySearch(getCartProductIds(currentUser.getId()), productId) >= 0;
+    }
+
+    /**
+     * 获取购物车商品数量
+     *
+     * @param request HTTP请求
+     * @return 购物车商品数量
+     */
+    @Override
+    public int getCartCount(HttpServletRequest request) {
+        // 获取当前登录用户
+        User currentUser = userService.getLoginUserPermitNull(request);
+        if (currentUser == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
+        }
+
+        return getCartProductIds(currentUser.getId()).length;
+    }
+
+    /**
+     * 获取用户购物车中的二手物品ID
+     *
+     * @param userId 用户ID
+     * @return 二手物品ID（升序）
+     */
+    @Override
+    public long[] getCartProductIds(Long userId) {
+        if (userId == null || userId <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户ID无效");
+        }
+        return cartCache.get(userId, this::loadCartProductIds);
+    }
+
+    /**
+     * 将二手物品移出用户购物车（下单、订单完成等场景）
+     * 在事务中调用时，事务提交后才生效；事务回滚时购物车不变
+     *
+     * @param userId 用户ID
+     * @param productIds 二手物品ID集合
+     */
+    @Override
+    public void removeProductsFromCart(Long userId, Collection<Long> productIds) {
+        if (userId == null || productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(productIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(productId -> applyChange(userId, productId, false));
+                }
+            });
+        } else {
+            ids.forEach(productId -> applyChange(userId, productId, false));
+        }
+    }
+
+    /**
+     * 将所有待写回的购物车变更写入数据库
+     *
+     * @return 写回的用户数
+     */
+    @Override
+    public int flushPendingChanges() {
+        flushLock.lock();
+        try {
+            int flushed = 0;
+            for (Long userId : pendingChanges.keySet()) {
+                try {
+                    if (writeUserChanges(userId)) {
+                        flushed++;
+                    }
+                } catch (Exception e) {
+                    // 变更保留在内存中，下次写回时重试
+                    log.error("购物车变更写回失败 - 用户ID: {}, 原因: {}", userId, e.getMessage(), e);
+                }
+            }
+            return flushed;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 定时写回购物车变更，写回间隔即最大持久化延迟
+     */
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        try {
+            flushPendingChanges();
+        } catch (Exception e) {
+            log.error("购物车变更定时写回失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 应用关闭前写回购物车变更
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flushPendingChanges();
+        if (flushed > 0) {
+            log.info("应用关闭前写回{}个用户的购物车变更", flushed);
+        }
+    }
+
+    /**
+     * 原子地修改内存中的用户购物车，并记录待写回的变更
+     *
+     * @param userId 用户ID
+     * @param productId 二手物品ID
+     * @param present true 加入，false 移出
+     * @return 购物车是否发生变化
+     */
+    private boolean applyChange(Long userId, long productId, boolean present) {
+        boolean[] changed = new boolean[1];
+        cartCache.asMap().compute(userId, (key, productIds) -> {
+            long[] current = productIds != null ? productIds : loadCartProductIds(key);
+            long[] updated = present ? insertSorted(current, productId) : removeSorted(current, productId);
+            if (updated != current) {
+                changed[0] = true;
+                pendingChanges.compute(key, (k, changes) -> {
+                    if (changes == null) {
+                        changes = new ConcurrentHashMap<>();
+                    }
+                    changes.put(productId, present);
+                    return changes;
+                });
+            }
+            return updated;
+        });
+        return changed[0];
     }
 
+    /**
+     * 从数据库加载用户购物车，并叠加尚未写回的变更
+     */
+    private long[] loadCartProductIds(Long userId) {
+        flushLock.lock();
+        try {
+            long[] productIds = this.baseMapper.selectProductIds(userId).stream()
+                    .mapToLong(Long::longValue)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            Map<Long, Boolean> changes = pendingChanges.get(userId);
+            if (changes != null) {
+                for (Map.Entry<Long, Boolean> change : changes.entrySet()) {
+                    productIds = change.getValue()
+                            ? insertSorted(productIds, change.getKey())
+                            : removeSorted(productIds, change.getKey());
+                }
+            }
+            return productIds.length > 0 ? productIds : EMPTY_CART;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 写回单个用户的待写回变更，读取完整购物车前调用
+     */
+    private void flushUserChanges(Long userId) {
+        if (!pendingChanges.containsKey(userId)) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            writeUserChanges(userId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 批量写入单个用户的变更（须持有 flushLock）
+     * 写入后只移除写入时的那份变更，写入期间又发生的变更留到下次
+     *
+     * @return 是否有变更写入
+     */
+    private boolean writeUserChanges(Long userId) {
+        Map<Long, Boolean> changes = pendingChanges.get(userId);
+        if (changes == null || changes.isEmpty()) {
+            pendingChanges.computeIfPresent(userId, (k, v) -> v.isEmpty() ? null : v);
+            return false;
+        }
+
+        Map<Long, Boolean> snapshot = new HashMap<>(changes);
+        List<Long> added = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        snapshot.forEach((productId, present) -> (present ? added : removed).add(productId));
+        if (!added.isEmpty()) {
+            this.baseMapper.upsertItems(userId, added);
+        }
+        if (!removed.isEmpty()) {
+            this.baseMapper.removeItems(userId, removed);
+        }
+
+        snapshot.forEach(changes::remove);
+        pendingChanges.computeIfPresent(userId, (k, v) -> v.isEmpty() ? null : v);
+        return true;
+    }
+
+    /**
+     * 向有序数组插入元素，已存在时返回原数组
+     */
+    private static long[] insertSorted(long[] productIds, long productId) {
+        int index = Arrays.binarySearch(productIds, productId);
+        if (index >= 0) {
+            return productIds;
+        }
+        int insertAt = -index - 1;
+        long[] updated = new long[productIds.length + 1];
+        System.arraycopy(productIds, 0, updated, 0, insertAt);
+        updated[insertAt] = productId;
+        System.arraycopy(productIds, insertAt, updated, insertAt + 1, productIds.length - insertAt);
+        return updated;
+    }
+
+    /**
+     * 从有序数组移除元素，不存在时返回原数组
+     */
+    private static long[] removeSorted(long[] productIds, long productId) {
+        int index = Arrays.binarySearch(productIds, productId);
+        if (index < 0) {
+            return productIds;
+        }
+        if (productIds.length == 1) {
+            return EMPTY_CART;
+        }
+        long[] updated = new long[productIds.length - 1];
+        System.arraycopy(productIds, 0, updated, 0, index);
+        System.arraycopy(productIds, index + 1, updated, index, productIds.length - index - 1);
+        return updated;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,385 @@
+package com.zhp.flea_market.service.impl;
+
+import com.zhp.flea_market.common.StatisticsResultCache;
+import com.zhp.flea_market.mapper.StatisticsRollupMapper;
+import com.zhp.flea_market.model.entity.Product;
+import com.zhp.flea_market.service.StatisticsRollupService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 统计汇总服务实现类
+ */
+@Service
+@Slf4j
+public class StatisticsRollupServiceImpl implements StatisticsRollupService {
+
+    private static final String PERIOD_DAY = "day";
+
+    private static final String PERIOD_MONTH = "month";
+
+    /**
+     * 在售状态
+     */
+    private static final int STATUS_ON_SALE = 1;
+
+    /**
+     * 已售出状态
+     */
+    private static final int STATUS_SOLD = 3;
+
+    @Autowired
+    private StatisticsRollupMapper statisticsRollupMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StatisticsResultCache statisticsResultCache;
+
+    @Autowired
+    @Qualifier("startupTaskExecutor")
+    private ThreadPoolTaskExecutor startupTaskExecutor;
+
+    /**
+     * 重建事务：读已提交，重建读取原始数据时不对订单、物品加锁，避免与等待守护行的业务事务死锁
+     */
+    private TransactionTemplate rebuildTransactionTemplate;
+
+    /**
+     * 独立事务，用于在业务事务之外创建守护行
+     */
+    private TransactionTemplate requiresNewTransactionTemplate;
+
+    /**
+     * 本实例已确认存在守护行的月份
+     */
+    private final Set<YearMonth> guardedMonths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 增量累加失败、等待重建的月份（数据库标记失败时的兜底）
+     */
+    private final Set<YearMonth> dirtyMonths = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void initTransactionTemplates() {
+        rebuildTransactionTemplate = new TransactionTemplate(transactionManager);
+        rebuildTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        requiresNewTransactionTemplate = new TransactionTemplate(transactionManager);
+        requiresNewTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void onOrderCompleted(Long buyerId, Product product, Date finishTime) {
+        if (product == null) {
+            return;
+        }
+        LocalDate day = toLocalDate(finishTime);
+        BigDecimal amount = product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO;
+        Long categoryId = categoryKey(product);
+        Map<YearMonth, List<Runnable>> deltas = new HashMap<>();
+        addCategory(deltas, day, categoryId, 1, amount, 0, 0);
+        if (buyerId != null) {
+            addDelta(deltas, day, () -> {
+                statisticsRollupMapper.upsertUserDelta(PERIOD_DAY, day, buyerId, 1, amount);
+                statisticsRollupMapper.upsertUserDelta(PERIOD_MONTH, day.withDayOfMonth(1), buyerId, 1, amount);
+            });
+        }
+        submitDeltas(deltas);
+    }
+
+    @Override
+    public void onProductCreated(Product product) {
+        if (product == null || product.getStatus() == null || product.getStatus() != STATUS_ON_SALE) {
+            return;
+        }
+        LocalDate day = toLocalDate(product.getCreateTime());
+        Long categoryId = categoryKey(product);
+        Map<YearMonth, List<Runnable>> deltas = new HashMap<>();
+        addCategory(deltas, day, categoryId, 0, BigDecimal.ZERO, 1, 0);
+        submitDeltas(deltas);
+    }
+
+    @Override
+    public void onProductStatusChanged(Product before, Integer newStatus) {
+        if (before == null || newStatus == null || newStatus.equals(before.getStatus())) {
+            return;
+        }
+        applyTransition(before, newStatus);
+    }
+
+    @Override
+    public void onProductRemoved(Product before) {
+        if (before == null) {
+            return;
+        }
+        applyTransition(before, null);
+    }
+
+    /**
+     * 在售量按发布日期归属周期，已售量按售出日期归属周期；
+     * 离开已售状态时从上次更新（即售出）所在周期扣减
+     */
+    private void applyTransition(Product before, Integer newStatus) {
+        Integer oldStatus = before.getStatus();
+        Long categoryId = categoryKey(before);
+        LocalDate createDay = toLocalDate(before.getCreateTime());
+        LocalDate soldDay = toLocalDate(before.getUpdateTime());
+        LocalDate today = LocalDate.now();
+
+        long onSaleDelta = (isStatus(newStatus, STATUS_ON_SALE) ? 1 : 0) - (isStatus(oldStatus, STATUS_ON_SALE) ? 1 : 0);
+        boolean leftSold = isStatus(oldStatus, STATUS_SOLD) && !isStatus(newStatus, STATUS_SOLD);
+        boolean enteredSold = isStatus(newStatus, STATUS_SOLD) && !isStatus(oldStatus, STATUS_SOLD);
+
+        Map<YearMonth, List<Runnable>> deltas = new HashMap<>();
+        if (onSaleDelta != 0) {
+            addCategory(deltas, createDay, categoryId, 0, BigDecimal.ZERO, onSaleDelta, 0);
+        }
+        if (leftSold) {
+            addCategory(deltas, soldDay, categoryId, 0, BigDecimal.ZERO, 0, -1);
+        }
+        if (enteredSold) {
+            addCategory(deltas, today, categoryId, 0, BigDecimal.ZERO, 0, 1);
+        }
+        submitDeltas(deltas);
+    }
+
+    /**
+     * 从原始数据重建指定月份的汇总
+     * 先独占该月守护行并把 epoch 加一：已持有共享锁的业务事务提交后才开始读取，
+     * 之后提交的业务事务等待重建结束，其增量按新的 epoch 累加
+     */
+    @Override
+    public void rebuildMonth(int year, int month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        LocalDate start = yearMonth.atDay(1);
+        LocalDate end = yearMonth.plusMonths(1).atDay(1);
+        Date startTime = toDate(start);
+        Date endTime = toDate(end);
+
+        ensureGuard(yearMonth);
+        dirtyMonths.remove(yearMonth);
+        try {
+            rebuildTransactionTemplate.executeWithoutResult(status -> {
+                statisticsRollupMapper.selectGuardEpochForUpdate(start);
+                statisticsRollupMapper.advanceGuardEpoch(start);
+                statisticsRollupMapper.deleteCategoryRollup(start, end);
+                statisticsRollupMapper.deleteUserRollup(start, end);
+                for (String periodType : new String[]{PERIOD_DAY, PERIOD_MONTH}) {
+                    statisticsRollupMapper.rebuildCategoryTrade(periodType, startTime, endTime);
+                    statisticsRollupMapper.rebuildCategoryOnSale(periodType, startTime, endTime);
+                    statisticsRollupMapper.rebuildCategorySold(periodType, startTime, endTime);
+                    statisticsRollupMapper.rebuildUserTrade(periodType, startTime, endTime);
+                }
+            });
+        } catch (RuntimeException e) {
+            dirtyMonths.add(yearMonth);
+            throw e;
+        }
+        statisticsResultCache.invalidateMonth(yearMonth);
+        log.info("统计汇总重建完成: {}年{}月", year, month);
+    }
+
+    @Override
+    public int rebuildAll() {
+        Date earliest = statisticsRollupMapper.selectEarliestActivityTime();
+        YearMonth current = YearMonth.now();
+        YearMonth cursor = earliest != null ? YearMonth.from(toLocalDate(earliest)) : current;
+
+        int months = 0;
+        while (!cursor.isAfter(current)) {
+            rebuildMonth(cursor.getYear(), cursor.getMonthValue());
+            cursor = cursor.plusMonths(1);
+            months++;
+        }
+        statisticsResultCache.invalidateAll();
+        return months;
+    }
+
+    /**
+     * 首次启动时汇总表为空，后台回填全部历史数据
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        startupTaskExecutor.execute(() -> {
+            try {
+                if (!statisticsRollupMapper.existsAnyRollup()) {
+                    log.info("统计汇总表为空，开始回填历史数据");
+                    int months = rebuildAll();
+                    log.info("统计汇总回填完成，共{}个月", months);
+                }
+            } catch (Exception e) {
+                log.error("统计汇总回填失败: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * 每晚重建上月、本月以及增量累加失败过的月份，校正增量累加期间可能出现的偏差
+     */
+    @Scheduled(cron = "${statistics.rollup.rebuild-cron:0 30 3 * * ?}")
+    public void nightlyRebuild() {
+        YearMonth current = YearMonth.now();
+        Set<YearMonth> months = new TreeSet<>(dirtyMonths);
+        months.add(current.minusMonths(1));
+        months.add(current);
+        try {
+            statisticsRollupMapper.selectDirtyMonths().forEach(monthStart -> months.add(YearMonth.from(monthStart)));
+        } catch (Exception e) {
+            log.error("查询待重建月份失败: {}", e.getMessage(), e);
+        }
+
+        for (YearMonth month : months) {
+            try {
+                rebuildMonth(month.getYear(), month.getMonthValue());
+            } catch (Exception e) {
+                log.error("统计汇总定时重建失败: {}年{}月, 原因: {}", month.getYear(), month.getMonthValue(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 登记分类维度增量：同时累加日汇总和月汇总
+     */
+    private void addCategory(Map<YearMonth, List<Runnable>> deltas, LocalDate day, Long categoryId,
+                             long tradeCount, BigDecimal tradeAmount, long onSaleCount, long soldCount) {
+        addDelta(deltas, day, () -> {
+            statisticsRollupMapper.upsertCategoryDelta(PERIOD_DAY, day, categoryId,
+                    tradeCount, tradeAmount, onSaleCount, soldCount);
+            statisticsRollupMapper.upsertCategoryDelta(PERIOD_MONTH, day.withDayOfMonth(1), categoryId,
+                    tradeCount, tradeAmount, onSaleCount, soldCount);
+        });
+    }
+
+    private static void addDelta(Map<YearMonth, List<Runnable>> deltas, LocalDate day, Runnable delta) {
+        deltas.computeIfAbsent(YearMonth.from(day), key -> new ArrayList<>()).add(delta);
+    }
+
+    /**
+     * 在事务提交后按月累加增量
+     * 业务事务提交前对涉及月份的守护行加共享锁并记下 epoch（该月的重建须等业务事务提交后才开始读取）；
+     * 提交后 epoch 已变化说明重建已计入该业务数据，跳过该月增量
+     */
+    private void submitDeltas(Map<YearMonth, List<Runnable>> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 业务数据已提交，无法与重建互斥：照常累加，并登记该月由定时任务重建
+            deltas.forEach((month, tasks) -> {
+                applyMonthDeltas(month, null, tasks);
+                markDirty(month);
+            });
+            return;
+        }
+
+        deltas.keySet().forEach(this::ensureGuard);
+        Map<YearMonth, Long> epochs = new HashMap<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // 按月份顺序加锁；失败时异常向上抛出使业务事务回滚，不在锁状态未知时提交
+                for (YearMonth month : new TreeSet<>(deltas.keySet())) {
+                    epochs.put(month, statisticsRollupMapper.selectGuardEpochShared(month.atDay(1)));
+                }
+            }
+
+            @Override
+            public void afterCommit() {
+                deltas.forEach((month, tasks) -> applyMonthDeltas(month, epochs.get(month), tasks));
+            }
+        });
+    }
+
+    /**
+     * 在独立事务中累加某月的增量，失败时登记该月由定时任务重建
+     *
+     * @param epoch 业务事务提交前读到的 epoch，为 null 时不校验
+     */
+    private void applyMonthDeltas(YearMonth month, Long epoch, List<Runnable> tasks) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Long currentEpoch = statisticsRollupMapper.selectGuardEpochShared(month.atDay(1));
+                if (epoch != null && !epoch.equals(currentEpoch)) {
+                    return;
+                }
+                tasks.forEach(Runnable::run);
+            });
+            statisticsResultCache.invalidateMonth(month);
+        } catch (Exception e) {
+            log.error("更新统计汇总失败，{}年{}月将由定时任务重建: {}", month.getYear(), month.getMonthValue(), e.getMessage(), e);
+            markDirty(month);
+        }
+    }
+
+    /**
+     * 确保月份守护行存在；在独立事务中创建，避免在业务事务内插入造成锁等待
+     */
+    private void ensureGuard(YearMonth month) {
+        if (guardedMonths.contains(month)) {
+            return;
+        }
+        requiresNewTransactionTemplate.executeWithoutResult(
+                status -> statisticsRollupMapper.insertGuardIgnore(month.atDay(1)));
+        guardedMonths.add(month);
+    }
+
+    /**
+     * 登记待重建月份，数据库标记失败时保留在内存中
+     */
+    private void markDirty(YearMonth month) {
+        dirtyMonths.add(month);
+        try {
+            statisticsRollupMapper.markGuardDirty(month.atDay(1));
+        } catch (Exception e) {
+            log.error("标记待重建月份失败: {}年{}月, 原因: {}", month.getYear(), month.getMonthValue(), e.getMessage(), e);
+        }
+    }
+
+    private static boolean isStatus(Integer status, int expected) {
+        return status != null && status == expected;
+    }
+
+    private static Long categoryKey(Product product) {
+        return product.getCategoryId() != null ? product.getCategoryId() : 0L;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        if (date == null) {
+            return LocalDate.now();
+        }
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -1,308 +1,317 @@
 package com.zhp.flea_market.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.zhp.flea_market.mapper.CategoryMapper;
+import com.zhp.flea_market.common.StatisticsResultCache;
 import com.zhp.flea_market.mapper.OrderMapper;
 import com.zhp.flea_market.mapper.ProductMapper;
-import com.zhp.flea_market.mapper.UserMapper;
+import com.zhp.flea_market.mapper.StatisticsRollupMapper;
 import com.zhp.flea_market.model.dto.response.MonthlyStatisticsResponse;
-import com.zhp.flea_market.model.entity.Category;
-import com.zhp.flea_market.model.entity.Order;
-import com.zhp.flea_market.model.entity.Product;
-import com.zhp.flea_market.model.entity.User;
 import com.zhp.flea_market.service.StatisticsService;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.ZoneId;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * 统计分析服务实现类
+ * 启用统计汇总时直接读取 stat_*_rollup 月汇总行（O(分类数) / O(活跃用户数)）；
+ * 未启用时由 GROUP BY / JOIN 查询在数据库侧实时聚合，只返回聚合后的行；
+ * 计算结果经 StatisticsResultCache 缓存
  */
 @Service
-@RequiredArgsConstructor
 public class StatisticsServiceImpl implements StatisticsService {
 
     private final ProductMapper productMapper;
     private final OrderMapper orderMapper;
-    private final CategoryMapper categoryMapper;
-    private final UserMapper userMapper;
+    private final StatisticsRollupMapper statisticsRollupMapper;
+    private final Executor statisticsExecutor;
+    private final StatisticsResultCache statisticsResultCache;
+    private final boolean rollupEnabled;
+
+    public StatisticsServiceImpl(ProductMapper productMapper, OrderMapper orderMapper,
+                                 StatisticsRollupMapper statisticsRollupMapper,
+                                 @Qualifier("statisticsExecutor") Executor statisticsExecutor,
+                                 StatisticsResultCache statisticsResultCache,
+                                 @Value("${statistics.rollup.enabled:true}") boolean rollupEnabled) {
+        this.productMapper = productMapper;
+        this.orderMapper = orderMapper;
+        this.statisticsRollupMapper = statisticsRollupMapper;
+        this.statisticsExecutor = statisticsExecutor;
+        this.statisticsResultCache = statisticsResultCache;
+        this.rollupEnabled = rollupEnabled;
+    }
 
     @Override
     public MonthlyStatisticsResponse getMonthlyStatistics(Integer year, Integer month) {
-        MonthlyStatisticsResponse response = new MonthlyStatisticsResponse();
-        response.setYear(year);
-        response.setMonth(month);
-        
-        // 获取所有统计信息
-        response.setMonthlyCategoryRanking(getMonthlyCategoryRanking(year, month).getMonthlyCategoryRanking());
-        response.setActiveUserRanking(getMonthlyActiveUserRanking(year, month).getActiveUserRanking());
-        response.setCategoryOnSaleInventory(getMonthlyCategoryOnSaleInventory(year, month).getCategoryOnSaleInventory());
-        response.setCategorySoldInventory(getMonthlyCategorySoldInventory(year, month).getCategorySoldInventory());
-        
-        return response;
+        return statisticsResultCache.get("monthly", year, month, () -> computeMonthlyStatistics(year, month));
     }
 
     @Override
     public MonthlyStatisticsResponse getMonthlyCategoryRanking(Integer year, Integer month) {
+        return statisticsResultCache.get("category-ranking", year, month, () -> computeMonthlyCategoryRanking(year, month));
+    }
+
+    @Override
+    public MonthlyStatisticsResponse getMonthlyActiveUserRanking(Integer year, Integer month) {
+        return statisticsResultCache.get("active-user-ranking", year, month, () -> computeMonthlyActiveUserRanking(year, month));
+    }
+
+    @Override
+    public MonthlyStatisticsResponse getMonthlyCategoryOnSaleInventory(Integer year, Integer month) {
+        return statisticsResultCache.get("category-on-sale", year, month, () -> computeMonthlyCategoryOnSaleInventory(year, month));
+    }
+
+    @Override
+    public MonthlyStatisticsResponse getMonthlyCategorySoldInventory(Integer year, Integer month) {
+        return statisticsResultCache.get("category-sold", year, month, () -> computeMonthlyCategorySoldInventory(year, month));
+    }
+
+    /**
+     * 月度完整统计
+     * 订单侧按 (分类, 买家) 扫描一次、物品侧按 (分类, 状态) 扫描一次，两次查询并行执行，
+     * 再在内存中把聚合行折叠为四项报表，耗时约等于较慢的那次查询
+     */
+    private MonthlyStatisticsResponse computeMonthlyStatistics(Integer year, Integer month) {
         MonthlyStatisticsResponse response = new MonthlyStatisticsResponse();
         response.setYear(year);
         response.setMonth(month);
         
-        // 获取指定月份的开始和结束时间
         YearMonth yearMonth = YearMonth.of(year, month);
-        Date startDate = Date.from(yearMonth.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endDate = Date.from(yearMonth.atEndOfMonth().atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
-        
-        // 查询该月内完成的订单（状态为2-已完成）
-        QueryWrapper<Order> orderWrapper = new QueryWrapper<>();
-        orderWrapper.eq("status", 2) // 已完成订单
-                   .ge("finish_time", startDate)
-                   .le("finish_time", endDate)
-                   .eq("deleted", 0);
-        List<Order> completedOrders = orderMapper.selectList(orderWrapper);
-        
-        // 获取订单对应的商品信息
-        List<Long> productIds = completedOrders.stream()
-                .map(Order::getProductId)
-                .distinct()
-                .collect(Collectors.toList());
-                
-        if (productIds.isEmpty()) {
-            response.setMonthlyCategoryRanking(new ArrayList<>());
+        if (rollupEnabled) {
+            // 分类汇总和用户汇总两次读取并行执行
+            LocalDate monthStart = yearMonth.atDay(1);
+            CompletableFuture<List<Map<String, Object>>> categoryFuture = CompletableFuture.supplyAsync(
+                    () -> statisticsRollupMapper.selectMonthlyCategoryRollup(monthStart), statisticsExecutor);
+            CompletableFuture<List<MonthlyStatisticsResponse.UserRankingItem>> userFuture = CompletableFuture.supplyAsync(
+                    () -> statisticsRollupMapper.selectMonthlyUserRanking(monthStart), statisticsExecutor);
+            List<Map<String, Object>> categoryRows = join(categoryFuture);
+            response.setMonthlyCategoryRanking(toCategoryRanking(categoryRows));
+            response.setActiveUserRanking(join(userFuture));
+            response.setCategoryOnSaleInventory(toInventory(categoryRows, "onSaleCount"));
+            response.setCategorySoldInventory(toInventory(categoryRows, "soldCount"));
             return response;
         }
-        
-        QueryWrapper<Product> productWrapper = new QueryWrapper<>();
-        productWrapper.in("id", productIds).eq("deleted", 0);
-        List<Product> products = productMapper.selectList(productWrapper);
-        
-        // 按分类统计交易次数和金额
-        Map<Long, CategoryStats> categoryStatsMap = new HashMap<>();
-        
-        for (Order order : completedOrders) {
-            Product product = products.stream()
-                    .filter(p -> p.getId().equals(order.getProductId()))
-                    .findFirst()
-                    .orElse(null);
-                    
-            if (product != null) {
-                Long categoryId = product.getCategoryId();
-                CategoryStats stats = categoryStatsMap.getOrDefault(categoryId, new CategoryStats());
-                stats.tradeCount++;
-                if (product.getPrice() != null) {
-                    stats.totalAmount += product.getPrice().doubleValue();
-                }
-                categoryStatsMap.put(categoryId, stats);
+
+        Date startTime = startOf(yearMonth);
+        Date endTime = startOf(yearMonth.plusMonths(1));
+
+        CompletableFuture<List<Map<String, Object>>> tradeFuture = CompletableFuture.supplyAsync(
+                () -> orderMapper.selectTradeSummaryByCategoryAndBuyer(startTime, endTime), statisticsExecutor);
+        CompletableFuture<List<Map<String, Object>>> inventoryFuture = CompletableFuture.supplyAsync(
+                () -> productMapper.selectInventoryByCategoryAndStatus(startTime, endTime), statisticsExecutor);
+
+        // 交易汇总行同时折叠为分类排行和买家排行
+        Map<Long, MonthlyStatisticsResponse.CategoryRankingItem> categoryRanking = new LinkedHashMap<>();
+        Map<Long, MonthlyStatisticsResponse.UserRankingItem> userRanking = new LinkedHashMap<>();
+        for (Map<String, Object> row : join(tradeFuture)) {
+            Long categoryId = toLong(row.get("categoryId"));
+            Long userId = toLong(row.get("userId"));
+            long tradeCount = toLong(row.get("tradeCount"));
+            BigDecimal totalAmount = toBigDecimal(row.get("totalAmount"));
+
+            MonthlyStatisticsResponse.CategoryRankingItem categoryItem = categoryRanking.computeIfAbsent(categoryId, id -> {
+                MonthlyStatisticsResponse.CategoryRankingItem item = new MonthlyStatisticsResponse.CategoryRankingItem();
+                item.setCategoryId(id);
+                item.setCategoryName((String) row.get("categoryName"));
+                item.setTradeCount(0L);
+                item.setTotalAmount(BigDecimal.ZERO);
+                return item;
+            });
+            categoryItem.setTradeCount(categoryItem.getTradeCount() + tradeCount);
+            categoryItem.setTotalAmount(categoryItem.getTotalAmount().add(totalAmount));
+
+            MonthlyStatisticsResponse.UserRankingItem userItem = userRanking.computeIfAbsent(userId, id -> {
+                MonthlyStatisticsResponse.UserRankingItem item = new MonthlyStatisticsResponse.UserRankingItem();
+                item.setUserId(id);
+                item.setUserName((String) row.get("userName"));
+                item.setAvatar((String) row.get("avatar"));
+                item.setTradeCount(0L);
+                item.setTotalAmount(BigDecimal.ZERO);
+                return item;
+            });
+            userItem.setTradeCount(userItem.getTradeCount() + tradeCount);
+            userItem.setTotalAmount(userItem.getTotalAmount().add(totalAmount));
+        }
+
+        // 库存汇总行按状态拆分为在售量和已售量
+        List<MonthlyStatisticsResponse.CategoryInventoryItem> onSaleInventory = new ArrayList<>();
+        List<MonthlyStatisticsResponse.CategoryInventoryItem> soldInventory = new ArrayList<>();
+        for (Map<String, Object> row : join(inventoryFuture)) {
+            MonthlyStatisticsResponse.CategoryInventoryItem item = new MonthlyStatisticsResponse.CategoryInventoryItem();
+            item.setCategoryId(toLong(row.get("categoryId")));
+            item.setCategoryName((String) row.get("categoryName"));
+            item.setItemCount(toLong(row.get("itemCount")));
+            if (Objects.equals(toLong(row.get("status")), 1L)) {
+                onSaleInventory.add(item);
+            } else {
+                soldInventory.add(item);
             }
         }
-        
-        // 获取分类信息
-        List<Category> categories = categoryMapper.selectList(new QueryWrapper<Category>().eq("deleted", 0));
-        Map<Long, String> categoryNameMap = categories.stream()
-                .collect(Collectors.toMap(Category::getId, Category::getName));
-        
-        // 转换为响应格式
-        List<MonthlyStatisticsResponse.CategoryRankingItem> rankingItems = categoryStatsMap.entrySet().stream()
-                .map(entry -> {
-                    MonthlyStatisticsResponse.CategoryRankingItem item = new MonthlyStatisticsResponse.CategoryRankingItem();
-                    item.setCategoryId(entry.getKey());
-                    item.setCategoryName(categoryNameMap.getOrDefault(entry.getKey(), "未知分类"));
-                    item.setTradeCount(entry.getValue().tradeCount);
-                    item.setTotalAmount(entry.getValue().totalAmount);
-                    return item;
-                })
-                .sorted((a, b) -> Long.compare(b.getTradeCount(), a.getTradeCount())) // 按交易次数降序排序
-                .collect(Collectors.toList());
-        
-        response.setMonthlyCategoryRanking(rankingItems);
+
+        List<MonthlyStatisticsResponse.CategoryRankingItem> categoryItems = new ArrayList<>(categoryRanking.values());
+        categoryItems.sort(Comparator.comparing(MonthlyStatisticsResponse.CategoryRankingItem::getTradeCount).reversed());
+        List<MonthlyStatisticsResponse.UserRankingItem> userItems = new ArrayList<>(userRanking.values());
+        userItems.sort(Comparator.comparing(MonthlyStatisticsResponse.UserRankingItem::getTradeCount).reversed());
+        onSaleInventory.sort(Comparator.comparing(MonthlyStatisticsResponse.CategoryInventoryItem::getItemCount).reversed());
+        soldInventory.sort(Comparator.comparing(MonthlyStatisticsResponse.CategoryInventoryItem::getItemCount).reversed());
+
+        response.setMonthlyCategoryRanking(categoryItems);
+        response.setActiveUserRanking(userItems);
+        response.setCategoryOnSaleInventory(onSaleInventory);
+        response.setCategorySoldInventory(soldInventory);
         return response;
     }
 
-    @Override
-    public MonthlyStatisticsResponse getMonthlyActiveUserRanking(Integer year, Integer month) {
+    private MonthlyStatisticsResponse computeMonthlyCategoryRanking(Integer year, Integer month) {
         MonthlyStatisticsResponse response = new MonthlyStatisticsResponse();
         response.setYear(year);
         response.setMonth(month);
         
-        // 获取指定月份的开始和结束时间
+        // 按分类汇总该月完成订单（状态为2-已完成）的交易次数和金额，按交易次数降序
         YearMonth yearMonth = YearMonth.of(year, month);
-        Date startDate = Date.from(yearMonth.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endDate = Date.from(yearMonth.atEndOfMonth().atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
-        
-        // 查询该月内完成的订单（状态为2-已完成）
-        QueryWrapper<Order> orderWrapper = new QueryWrapper<>();
-        orderWrapper.eq("status", 2) // 已完成订单
-                   .ge("finish_time", startDate)
-                   .le("finish_time", endDate)
-                   .eq("deleted", 0);
-        List<Order> completedOrders = orderMapper.selectList(orderWrapper);
-        
-        // 获取订单对应的商品信息
-        List<Long> productIds = completedOrders.stream()
-                .map(Order::getProductId)
-                .distinct()
-                .collect(Collectors.toList());
-                
-        if (productIds.isEmpty()) {
-            response.setActiveUserRanking(new ArrayList<>());
+        if (rollupEnabled) {
+            response.setMonthlyCategoryRanking(toCategoryRanking(
+                    statisticsRollupMapper.selectMonthlyCategoryRollup(yearMonth.atDay(1))));
             return response;
         }
+        response.setMonthlyCategoryRanking(
+                orderMapper.selectCategoryTradeRanking(startOf(yearMonth), startOf(yearMonth.plusMonths(1))));
+        return response;
+    }
+
+    private MonthlyStatisticsResponse computeMonthlyActiveUserRanking(Integer year, Integer month) {
+        MonthlyStatisticsResponse response = new MonthlyStatisticsResponse();
+        response.setYear(year);
+        response.setMonth(month);
         
-        QueryWrapper<Product> productWrapper = new QueryWrapper<>();
-        productWrapper.in("id", productIds).eq("deleted", 0);
-        List<Product> products = productMapper.selectList(productWrapper);
-        
-        // 按用户统计交易次数和金额（买家）
-        Map<Long, UserStats> userStatsMap = new HashMap<>();
-        
-        for (Order order : completedOrders) {
-            Product product = products.stream()
-                    .filter(p -> p.getId().equals(order.getProductId()))
-                    .findFirst()
-                    .orElse(null);
-                    
-            if (product != null) {
-                Long buyerId = order.getBuyerId();
-                UserStats stats = userStatsMap.getOrDefault(buyerId, new UserStats());
-                stats.tradeCount++;
-                if (product.getPrice() != null) {
-                    stats.totalAmount += product.getPrice().doubleValue();
-                }
-                userStatsMap.put(buyerId, stats);
-            }
+        // 按买家汇总该月完成订单的交易次数和金额，按交易次数降序
+        YearMonth yearMonth = YearMonth.of(year, month);
+        if (rollupEnabled) {
+            response.setActiveUserRanking(statisticsRollupMapper.selectMonthlyUserRanking(yearMonth.atDay(1)));
+            return response;
         }
-        
-        // 获取用户信息
-        List<Long> userIds = new ArrayList<>(userStatsMap.keySet());
-        List<User> users = userMapper.selectList(new QueryWrapper<User>().in("id", userIds).eq("deleted", 0));
-        Map<Long, User> userMap = users.stream()
-                .collect(Collectors.toMap(User::getId, user -> user));
-        
-        // 转换为响应格式
-        List<MonthlyStatisticsResponse.UserRankingItem> rankingItems = userStatsMap.entrySet().stream()
-                .map(entry -> {
-                    MonthlyStatisticsResponse.UserRankingItem item = new MonthlyStatisticsResponse.UserRankingItem();
-                    item.setUserId(entry.getKey());
-                    User user = userMap.get(entry.getKey());
-                    if (user != null) {
-                        item.setUserName(user.getUserName());
-                        item.setAvatar(user.getUserAvatar());
-                    } else {
-                        item.setUserName("未知用户");
-                        item.setAvatar("");
-                    }
-                    item.setTradeCount(entry.getValue().tradeCount);
-                    item.setTotalAmount(entry.getValue().totalAmount);
-                    return item;
-                })
-                .sorted((a, b) -> Long.compare(b.getTradeCount(), a.getTradeCount())) // 按交易次数降序排序
-                .collect(Collectors.toList());
-        
-        response.setActiveUserRanking(rankingItems);
+        response.setActiveUserRanking(
+                orderMapper.selectBuyerTradeRanking(startOf(yearMonth), startOf(yearMonth.plusMonths(1))));
         return response;
     }
 
-    @Override
-    public MonthlyStatisticsResponse getMonthlyCategoryOnSaleInventory(Integer year, Integer month) {
+    private MonthlyStatisticsResponse computeMonthlyCategoryOnSaleInventory(Integer year, Integer month) {
         MonthlyStatisticsResponse response = new MonthlyStatisticsResponse();
         response.setYear(year);
         response.setMonth(month);
         
-        // 获取指定月份的开始和结束时间
+        // 按分类统计该月发布且状态为1（已通过）的物品数量
         YearMonth yearMonth = YearMonth.of(year, month);
-        Date startDate = Date.from(yearMonth.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endDate = Date.from(yearMonth.atEndOfMonth().atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
-        
-        // 查询该月内状态为1（已通过）的商品
-        QueryWrapper<Product> productWrapper = new QueryWrapper<>();
-        productWrapper.eq("status", 1) // 已通过（在售）
-                     .ge("create_time", startDate)
-                     .le("create_time", endDate)
-                     .eq("deleted", 0);
-        List<Product> onSaleProducts = productMapper.selectList(productWrapper);
-        
-        // 按分类统计在售商品数量
-        Map<Long, Long> categoryCountMap = onSaleProducts.stream()
-                .collect(Collectors.groupingBy(Product::getCategoryId, Collectors.counting()));
-        
-        // 获取分类信息
-        List<Category> categories = categoryMapper.selectList(new QueryWrapper<Category>().eq("deleted", 0));
-        Map<Long, String> categoryNameMap = categories.stream()
-                .collect(Collectors.toMap(Category::getId, Category::getName));
-        
-        // 转换为响应格式
-        List<MonthlyStatisticsResponse.CategoryInventoryItem> inventoryItems = categoryCountMap.entrySet().stream()
-                .map(entry -> {
-                    MonthlyStatisticsResponse.CategoryInventoryItem item = new MonthlyStatisticsResponse.CategoryInventoryItem();
-                    item.setCategoryId(entry.getKey());
-                    item.setCategoryName(categoryNameMap.getOrDefault(entry.getKey(), "未知分类"));
-                    item.setItemCount(entry.getValue());
-                    return item;
-                })
-                .sorted((a, b) -> Long.compare(b.getItemCount(), a.getItemCount())) // 按数量降序排序
-                .collect(Collectors.toList());
-        
-        response.setCategoryOnSaleInventory(inventoryItems);
+        if (rollupEnabled) {
+            response.setCategoryOnSaleInventory(toInventory(
+                    statisticsRollupMapper.selectMonthlyCategoryRollup(yearMonth.atDay(1)), "onSaleCount"));
+            return response;
+        }
+        response.setCategoryOnSaleInventory(
+                productMapper.selectOnSaleInventoryByCategory(startOf(yearMonth), startOf(yearMonth.plusMonths(1))));
         return response;
     }
 
-    @Override
-    public MonthlyStatisticsResponse getMonthlyCategorySoldInventory(Integer year, Integer month) {
+    private MonthlyStatisticsResponse computeMonthlyCategorySoldInventory(Integer year, Integer month) {
         MonthlyStatisticsResponse response = new MonthlyStatisticsResponse();
         response.setYear(year);
         response.setMonth(month);
         
-        // 获取指定月份的开始和结束时间
+        // 按分类统计该月状态为3（已售出）的物品数量
         YearMonth yearMonth = YearMonth.of(year, month);
-        Date startDate = Date.from(yearMonth.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endDate = Date.from(yearMonth.atEndOfMonth().atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
-        
-        // 查询该月内状态为3（已售出）的商品
-        QueryWrapper<Product> productWrapper = new QueryWrapper<>();
-        productWrapper.eq("status", 3) // 已售出
-                     .ge("update_time", startDate)
-                     .le("update_time", endDate)
-                     .eq("deleted", 0);
-        List<Product> soldProducts = productMapper.selectList(productWrapper);
-        
-        // 按分类统计已售商品数量
-        Map<Long, Long> categoryCountMap = soldProducts.stream()
-                .collect(Collectors.groupingBy(Product::getCategoryId, Collectors.counting()));
-        
-        // 获取分类信息
-        List<Category> categories = categoryMapper.selectList(new QueryWrapper<Category>().eq("deleted", 0));
-        Map<Long, String> categoryNameMap = categories.stream()
-                .collect(Collectors.toMap(Category::getId, Category::getName));
-        
-        // 转换为响应格式
-        List<MonthlyStatisticsResponse.CategoryInventoryItem> inventoryItems = categoryCountMap.entrySet().stream()
-                .map(entry -> {
+        if (rollupEnabled) {
+            response.setCategorySoldInventory(toInventory(
+                    statisticsRollupMapper.selectMonthlyCategoryRollup(yearMonth.atDay(1)), "soldCount"));
+            return response;
+        }
+        response.setCategorySoldInventory(
+                productMapper.selectSoldInventoryByCategory(startOf(yearMonth), startOf(yearMonth.plusMonths(1))));
+        return response;
+    }
+
+    /**
+     * 由分类月汇总行生成交易排行，按交易次数降序
+     */
+    private static List<MonthlyStatisticsResponse.CategoryRankingItem> toCategoryRanking(List<Map<String, Object>> rows) {
+        return rows.stream()
+                .filter(row -> toLong(row.get("tradeCount")) > 0)
+                .map(row -> {
+                    MonthlyStatisticsResponse.CategoryRankingItem item = new MonthlyStatisticsResponse.CategoryRankingItem();
+                    item.setCategoryId(toLong(row.get("categoryId")));
+                    item.setCategoryName((String) row.get("categoryName"));
+                    item.setTradeCount(toLong(row.get("tradeCount")));
+                    item.setTotalAmount(toBigDecimal(row.get("totalAmount")));
+                    return item;
+                })
+                .sorted(Comparator.comparing(MonthlyStatisticsResponse.CategoryRankingItem::getTradeCount).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 由分类月汇总行生成在售量或已售量，按数量降序
+     *
+     * @param countKey onSaleCount 或 soldCount
+     */
+    private static List<MonthlyStatisticsResponse.CategoryInventoryItem> toInventory(List<Map<String, Object>> rows,
+                                                                                  String countKey) {
+        Function<Map<String, Object>, Long> count = row -> toLong(row.get(countKey));
+        return rows.stream()
+                .filter(row -> count.apply(row) > 0)
+                .map(row -> {
                     MonthlyStatisticsResponse.CategoryInventoryItem item = new MonthlyStatisticsResponse.CategoryInventoryItem();
-                    item.setCategoryId(entry.getKey());
-                    item.setCategoryName(categoryNameMap.getOrDefault(entry.getKey(), "未知分类"));
-                    item.setItemCount(entry.getValue());
+                    item.setCategoryId(toLong(row.get("categoryId")));
+                    item.setCategoryName((String) row.get("categoryName"));
+                    item.setItemCount(count.apply(row));
                     return item;
                 })
-                .sorted((a, b) -> Long.compare(b.getItemCount(), a.getItemCount())) // 按数量降序排序
+                .sorted(Comparator.comparing(MonthlyStatisticsResponse.CategoryInventoryItem::getItemCount).reversed())
                 .collect(Collectors.toList());
-        
-        response.setCategorySoldInventory(inventoryItems);
-        return response;
     }
-    
-    // 辅助类：分类统计信息
-    private static class CategoryStats {
-        long tradeCount = 0;
-        double totalAmount = 0.0;
+
+    /**
+     * 获取月份第一天零点，统计区间为 [本月第一天, 下月第一天)
+     */
+    private static Date startOf(YearMonth yearMonth) {
+        return Date.from(yearMonth.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
     }
-    
-    // 辅助类：用户统计信息
-    private static class UserStats {
-        long tradeCount = 0;
-        double totalAmount = 0.0;
+
+    /**
+     * 等待并行查询结果，查询异常原样抛出
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
     }
-}
\ No newline at end of file
+}
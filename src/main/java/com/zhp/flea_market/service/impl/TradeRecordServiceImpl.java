@@ -6,25 +6,28 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.zhp.flea_market.common.ErrorCode;
 import com.zhp.flea_market.exception.BusinessException;
 import com.zhp.flea_market.mapper.TradeRecordMapper;
-import com.zhp.flea_market.model.entity.Order;
 import com.zhp.flea_market.model.entity.Product;
 import com.zhp.flea_market.model.entity.TradeRecord;
 import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.TradeRecordVO;
-import com.zhp.flea_market.service.OrderService;
 import com.zhp.flea_market.service.ProductService;
 import com.zhp.flea_market.service.TradeRecordService;
 import com.zhp.flea_market.service.UserService;
 import com.zhp.flea_market.utils.PageUtils;
+import com.zhp.flea_market.utils.PrefetchUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.CollectionUtils;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 交易记录服务实现类
@@ -35,12 +38,14 @@ public class TradeRecordServiceImpl extends ServiceImpl<TradeRecordMapper, Trade
     @Autowired
     private UserService userService;
 
-    @Autowired
-    private OrderService orderService;
-
     @Autowired
     private ProductService productService;
 
+    /**
+     * 历史交易金额补齐时每批查询的二手物品数量
+     */
+    private static final int LEGACY_PRODUCT_BATCH_SIZE = 500;
+
     /**
      * 创建交易记录
      *
@@ -80,12 +85,19 @@ public class TradeRecordServiceImpl extends ServiceImpl<TradeRecordMapper, Trade
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "交易金额无效");
         }
 
-        // 创建交易记录
+        // 创建交易记录，成交时的名称、金额和支付方式一并快照，之后不随物品或用户信息变化
         TradeRecord tradeRecord = new TradeRecord();
         tradeRecord.setOrderId(orderId);
         tradeRecord.setProductId(productId);
+        tradeRecord.setProductName(productName);
         tradeRecord.setBuyerId(buyerId);
+        tradeRecord.setBuyerName(buyerName);
         tradeRecord.setSellerId(sellerId);
+        tradeRecord.setSellerName(sellerName);
+        tradeRecord.setAmount(amount);
+        tradeRecord.setPaymentMethod(paymentMethod);
+        tradeRecord.setPaymentMethodDesc(paymentMethodDesc);
+        tradeRecord.setRemark(remark);
         tradeRecord.setTradeStatus(1); // 交易成功
 
         boolean saved = this.save(tradeRecord);
@@ -194,7 +206,7 @@ public class TradeRecordServiceImpl extends ServiceImpl<TradeRecordMapper, Trade
 
         // 转换为VO对象
 
-        return convertToTradeRecordVO(tradeRecord);
+        return convertToTradeRecordVOList(Collections.singletonList(tradeRecord)).get(0);
     }
 
     /**
@@ -216,7 +228,7 @@ public class TradeRecordServiceImpl extends ServiceImpl<TradeRecordMapper, Trade
         queryWrapper.eq("buyer_id", currentUser.getId());
         queryWrapper.orderByDesc("trade_time");
 
-        return PageUtils.getTradeRecordPageResult(this, page, queryWrapper, this::convertToTradeRecordVO);
+        return PageUtils.getTradeRecordPageResult(this, page, queryWrapper, this::convertToTradeRecordVOList);
     }
 
     /**
@@ -238,7 +250,51 @@ public class TradeRecordServiceImpl extends ServiceImpl<TradeRecordMapper, Trade
         queryWrapper.eq("seller_id", currentUser.getId());
         queryWrapper.orderByDesc("trade_time");
 
-        return PageUtils.getTradeRecordPageResult(this, page, queryWrapper, this::convertToTradeRecordVO);
+        return PageUtils.getTradeRecordPageResult(this, page, queryWrapper, this::convertToTradeRecordVOList);
+    }
+
+    /**
+     * 获取买家的交易记录列表（游标分页）
+     *
+     * @param request HTTP请求
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页交易记录VO列表
+     */
+    @Override
+    public CursorPageVO<TradeRecordVO> getBuyerTradeRecordsByCursor(HttpServletRequest request, String cursor, long size) {
+        // 获取当前登录用户
+        User currentUser = userService.getLoginUserPermitNull(request);
+        if (currentUser == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
+        }
+
+        return PageUtils.getCursorPageResult(this, cursor, size, "trade_time",
+                        TradeRecord::getTradeTime, TradeRecord::getId,
+                        queryWrapper -> queryWrapper.eq("buyer_id", currentUser.getId()))
+                .convert(this::convertToTradeRecordVOList);
+    }
+
+    /**
+     * 获取卖家的交易记录列表（游标分页）
+     *
+     * @param request HTTP请求
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @return 游标分页交易记录VO列表
+     */
+    @Override
+    public CursorPageVO<TradeRecordVO> getSellerTradeRecordsByCursor(HttpServletRequest request, String cursor, long size) {
+        // 获取当前登录用户
+        User currentUser = userService.getLoginUserPermitNull(request);
+        if (currentUser == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
+        }
+
+        return PageUtils.getCursorPageResult(this, cursor, size, "trade_time",
+                        TradeRecord::getTradeTime, TradeRecord::getId,
+                        queryWrapper -> queryWrapper.eq("seller_id", currentUser.getId()))
+                .convert(this::convertToTradeRecordVOList);
     }
 
     /**
@@ -267,11 +323,13 @@ public class TradeRecordServiceImpl extends ServiceImpl<TradeRecordMapper, Trade
 
         QueryWrapper<TradeRecord> queryWrapper = getQueryWrapper(null, null, tradeStatus, startDate, endDate);
         
-        return PageUtils.getTradeRecordPageResult(this, page, queryWrapper, this::convertToTradeRecordVO);
+        return PageUtils.getTradeRecordPageResult(this, page, queryWrapper, this::convertToTradeRecordVOList);
     }
 
     /**
      * 获取指定时间范围内的交易总额（积分兑换交易不计入金额）
+     * 已有成交快照的记录由一条 SUM 聚合在数据库内完成；
+     * 尚未回填快照的历史记录流式读取二手物品ID，再按批次取价格补齐
      *
      * @param startDate 开始日期
      * @param endDate 结束日期
@@ -279,42 +337,80 @@ public class TradeRecordServiceImpl extends ServiceImpl<TradeRecordMapper, Trade
      */
     @Override
     public BigDecimal getTotalTradeAmount(Date startDate, Date endDate) {
-        QueryWrapper<TradeRecord> queryWrapper = getQueryWrapper(null, null, null, startDate, endDate);
-        
-        List<TradeRecord> records = this.list(queryWrapper);
-        if (CollectionUtils.isEmpty(records)) {
+        QueryWrapper<TradeRecord> sumWrapper = getRangeWrapper(startDate, endDate);
+        // 排除积分兑换交易（支付方式为2）
+        sumWrapper.isNotNull("amount").ne("payment_method", 2);
+        BigDecimal totalAmount = this.baseMapper.selectAmountSum(sumWrapper);
+        if (totalAmount == null) {
+            totalAmount = BigDecimal.ZERO;
+        }
+
+        return totalAmount.add(getLegacyTradeAmount(startDate, endDate));
+    }
+
+    /**
+     * 获取指定时间范围内的交易数量
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 交易数量
+     */
+    @Override
+    public Long getTradeCount(Date startDate, Date endDate) {
+        return this.count(getRangeWrapper(startDate, endDate));
+    }
+
+    /**
+     * 汇总未回填快照的历史交易金额
+     * 流式结果集打开期间不能在同一连接上查询二手物品，因此先只按二手物品ID计数，结束后再批量取价格
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 历史交易金额
+     */
+    private BigDecimal getLegacyTradeAmount(Date startDate, Date endDate) {
+        QueryWrapper<TradeRecord> legacyWrapper = getRangeWrapper(startDate, endDate);
+        legacyWrapper.isNull("amount");
+
+        Map<Long, Long> productTradeCounts = new HashMap<>();
+        this.baseMapper.streamProductIds(legacyWrapper, context -> {
+            Long productId = context.getResultObject().getProductId();
+            if (productId != null) {
+                productTradeCounts.merge(productId, 1L, Long::sum);
+            }
+        });
+        if (productTradeCounts.isEmpty()) {
             return BigDecimal.ZERO;
         }
 
         BigDecimal totalAmount = BigDecimal.ZERO;
-        for (TradeRecord record : records) {
-            if (record.getOrderId() != null) {
-                try {
-                    Order order = orderService.getById(record.getOrderId());
-                    Product product = productService.getById(order.getProductId());
-                    // 排除积分兑换交易（支付方式为2）
-                    if (product.getPrice() != null && product.getPaymentMethod() != 2) {
-                        totalAmount = totalAmount.add(product.getPrice());
-                    }
-                } catch (Exception ignored) {
+        List<Long> productIds = new ArrayList<>(productTradeCounts.keySet());
+        for (int from = 0; from < productIds.size(); from += LEGACY_PRODUCT_BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + LEGACY_PRODUCT_BATCH_SIZE, productIds.size()));
+            for (Product product : productService.listByIds(batch)) {
+                // 排除积分兑换交易（支付方式为2）
+                if (product.getPrice() != null && !Integer.valueOf(2).equals(product.getPaymentMethod())) {
+                    BigDecimal count = BigDecimal.valueOf(productTradeCounts.get(product.getId()));
+                    totalAmount = totalAmount.add(product.getPrice().multiply(count));
                 }
             }
         }
-        
         return totalAmount;
     }
 
     /**
-     * 获取指定时间范围内的交易数量
+     * 构建按交易时间范围过滤的聚合查询条件（不排序，显式带上逻辑删除条件）
      *
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return 交易数量
+     * @return 查询条件
      */
-    @Override
-    public Long getTradeCount(Date startDate, Date endDate) {
-        QueryWrapper<TradeRecord> queryWrapper = getQueryWrapper(null, null, null, startDate, endDate);
-        return this.count(queryWrapper);
+    private QueryWrapper<TradeRecord> getRangeWrapper(Date startDate, Date endDate) {
+        QueryWrapper<TradeRecord> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("deleted", 0);
+        queryWrapper.ge(startDate != null, "trade_time", startDate);
+        queryWrapper.le(endDate != null, "trade_time", endDate);
+        return queryWrapper;
     }
 
     /**
@@ -370,78 +466,104 @@ public class TradeRecordServiceImpl extends ServiceImpl<TradeRecordMapper, Trade
                (tradeRecord.getSellerId() != null && tradeRecord.getSellerId().equals(userId));
     }
 
+    /**
+     * 将交易记录实体列表转换为VO对象列表
+     * 名称、金额和支付方式直接取记录上的成交快照；
+     * 仅对尚未回填快照的历史记录按整页批量预取二手物品和用户
+     *
+     * @param tradeRecords 交易记录实体列表
+     * @return 交易记录VO对象列表
+     */
+    private List<TradeRecordVO> convertToTradeRecordVOList(List<TradeRecord> tradeRecords) {
+        if (tradeRecords == null || tradeRecords.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<TradeRecord> legacyRecords = tradeRecords.stream()
+                .filter(tradeRecord -> !hasSnapshot(tradeRecord))
+                .toList();
+        Map<Long, Product> productMap = Collections.emptyMap();
+        Map<Long, User> userMap = Collections.emptyMap();
+        if (!legacyRecords.isEmpty()) {
+            productMap = PrefetchUtils.prefetch(productService, Product::getId,
+                    legacyRecords, TradeRecord::getProductId);
+            userMap = PrefetchUtils.prefetch(userService, User::getId,
+                    legacyRecords, TradeRecord::getBuyerId, TradeRecord::getSellerId);
+        }
+        
+        List<TradeRecordVO> tradeRecordVOs = new ArrayList<>();
+        for (TradeRecord tradeRecord : tradeRecords) {
+            tradeRecordVOs.add(convertToTradeRecordVO(tradeRecord, productMap, userMap));
+        }
+        return tradeRecordVOs;
+    }
+
     /**
      * 将交易记录实体转换为VO对象
      *
      * @param tradeRecord 交易记录实体
+     * @param productMap 二手物品ID -> 二手物品（仅包含未回填快照的记录）
+     * @param userMap 用户ID -> 用户（仅包含未回填快照的记录）
      * @return 交易记录VO对象
      */
-    private TradeRecordVO convertToTradeRecordVO(TradeRecord tradeRecord) {
+    private TradeRecordVO convertToTradeRecordVO(TradeRecord tradeRecord, Map<Long, Product> productMap,
+                                                 Map<Long, User> userMap) {
         TradeRecordVO tradeRecordVO = new TradeRecordVO();
         
-        // 复制基本属性
+        // 复制基本属性和成交快照
         tradeRecordVO.setId(tradeRecord.getId());
         tradeRecordVO.setOrderId(tradeRecord.getOrderId());
         tradeRecordVO.setProductId(tradeRecord.getProductId());
+        tradeRecordVO.setProductName(tradeRecord.getProductName());
         tradeRecordVO.setBuyerId(tradeRecord.getBuyerId());
+        tradeRecordVO.setBuyerName(tradeRecord.getBuyerName());
         tradeRecordVO.setSellerId(tradeRecord.getSellerId());
+        tradeRecordVO.setSellerName(tradeRecord.getSellerName());
+        tradeRecordVO.setAmount(tradeRecord.getAmount());
+        tradeRecordVO.setPaymentMethod(tradeRecord.getPaymentMethod());
+        tradeRecordVO.setPaymentMethodDesc(tradeRecord.getPaymentMethodDesc());
+        tradeRecordVO.setRemark(tradeRecord.getRemark());
         tradeRecordVO.setTradeTime(tradeRecord.getTradeTime());
         tradeRecordVO.setTradeStatus(tradeRecord.getTradeStatus());
         tradeRecordVO.setTradeStatusDesc(getTradeStatusDesc(tradeRecord.getTradeStatus()));
 
-        // 获取订单信息以获取金额
-        if (tradeRecord.getOrderId() != null) {
-            try {
-                Order order = orderService.getById(tradeRecord.getOrderId());
-                Product product = productService.getById(order.getProductId());
-                tradeRecordVO.setAmount(product.getPrice());
-            } catch (Exception e) {
-                tradeRecordVO.setAmount(null);
-            }
+        if (hasSnapshot(tradeRecord)) {
+            return tradeRecordVO;
         }
-        
-        // 获取二手物品信息
-        if (tradeRecord.getProductId() != null) {
-            try {
-                Product product = productService.getById(tradeRecord.getProductId());
-                if (product != null) {
-                    tradeRecordVO.setProductName(product.getProductName());
-                }
-            } catch (Exception e) {
-                // 如果获取二手物品失败，二手物品名称设为null
-                tradeRecordVO.setProductName(null);
-            }
+
+        // 未回填快照的历史记录：取二手物品当前名称和价格
+        Product product = productMap.get(tradeRecord.getProductId());
+        if (product != null) {
+            tradeRecordVO.setProductName(product.getProductName());
+            tradeRecordVO.setAmount(product.getPrice());
+            tradeRecordVO.setPaymentMethod(product.getPaymentMethod());
         }
         
         // 获取买家信息
-        if (tradeRecord.getBuyerId() != null) {
-            try {
-                User buyer = userService.getById(tradeRecord.getBuyerId());
-                if (buyer != null) {
-                    tradeRecordVO.setBuyerName(buyer.getUserName());
-                }
-            } catch (Exception e) {
-                // 如果获取买家失败，买家名称设为null
-                tradeRecordVO.setBuyerName(null);
-            }
+        User buyer = userMap.get(tradeRecord.getBuyerId());
+        if (buyer != null) {
+            tradeRecordVO.setBuyerName(buyer.getUserName());
         }
         
         // 获取卖家信息
-        if (tradeRecord.getSellerId() != null) {
-            try {
-                User seller = userService.getById(tradeRecord.getSellerId());
-                if (seller != null) {
-                    tradeRecordVO.setSellerName(seller.getUserName());
-                }
-            } catch (Exception e) {
-                // 如果获取卖家失败，卖家名称设为null
-                tradeRecordVO.setSellerName(null);
-            }
+        User seller = userMap.get(tradeRecord.getSellerId());
+        if (seller != null) {
+            tradeRecordVO.setSellerName(seller.getUserName());
         }
         
         return tradeRecordVO;
     }
 
+    /**
+     * 交易记录是否已带成交快照
+     *
+     * @param tradeRecord 交易记录实体
+     * @return 是否已带快照
+     */
+    private boolean hasSnapshot(TradeRecord tradeRecord) {
+        return tradeRecord.getAmount() != null && tradeRecord.getPaymentMethod() != null;
+    }
+
     /**
      * 获取交易状态描述
      *
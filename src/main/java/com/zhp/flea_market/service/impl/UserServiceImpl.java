@@ -2,19 +2,25 @@ package com.zhp.flea_market.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zhp.flea_market.common.EntityCache;
+import com.zhp.flea_market.common.EntityCacheManager;
+import com.zhp.flea_market.common.TokenRevocationRegistry;
 import com.zhp.flea_market.constant.CommonConstant;
 import com.zhp.flea_market.exception.BusinessException;
 import com.zhp.flea_market.common.ErrorCode;
 import com.zhp.flea_market.mapper.UserMapper;
 import com.zhp.flea_market.model.dto.request.UserQueryRequest;
 import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.model.enums.PointsChangeTypeEnum;
 import com.zhp.flea_market.model.enums.UserRoleEnum;
 import com.zhp.flea_market.model.vo.LoginUserVO;
 import com.zhp.flea_market.model.vo.UserVO;
+import com.zhp.flea_market.service.PointsRecordService;
 import com.zhp.flea_market.service.UserService;
 import com.zhp.flea_market.service.ImageStorageService;
 import com.zhp.flea_market.utils.PageUtils;
 import com.zhp.flea_market.utils.SqlUtils;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
@@ -24,13 +30,15 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.DigestUtils;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static com.zhp.flea_market.constant.UserConstant.USER_LOGIN_STATE;
+import static com.zhp.flea_market.constant.UserConstant.CURRENT_USER;
 
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
@@ -40,6 +48,25 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     public static final String SALT = "114514";
 
+    @Autowired
+    private EntityCacheManager entityCacheManager;
+
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Autowired
+    private PointsRecordService pointsRecordService;
+
+    /**
+     * 用户实体缓存
+     */
+    private EntityCache<User> userCache;
+
+    @PostConstruct
+    public void initEntityCache() {
+        userCache = entityCacheManager.create("user", User::new);
+    }
+
     /**
      * 用户注册
      *
@@ -139,8 +166,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new BusinessException(ErrorCode.FORBIDDEN_ERROR, "您的账号审核未通过，无法登录");
         }
         
-        // 3. 记录用户的登录态
-        request.getSession().setAttribute(USER_LOGIN_STATE, user);
+        // 3. 记录本次请求的登录用户（无状态模式，不创建会话，后续请求凭令牌认证）
+        request.setAttribute(CURRENT_USER, user);
         return this.getLoginUserVO(user);
     }
 
@@ -152,9 +179,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     @Override
     public User getLoginUser(HttpServletRequest request) {
-        // 先判断是否已登录
-        Object userObj = request.getSession().getAttribute(USER_LOGIN_STATE);
-        User currentUser = (User) userObj;
+        // 先判断是否已登录：使用统一认证拦截器根据令牌声明构造的用户主体
+        User currentUser = (User) request.getAttribute(CURRENT_USER);
         if (currentUser == null || currentUser.getId() == null) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
@@ -174,15 +200,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     @Override
     public User getLoginUserPermitNull(HttpServletRequest request) {
-        // 先尝试从统一认证拦截器设置的request属性中获取用户信息
-        User currentUser = (User) request.getAttribute("currentUser");
+        // 从统一认证拦截器设置的request属性中获取用户信息
+        User currentUser = (User) request.getAttribute(CURRENT_USER);
         if (currentUser == null || currentUser.getId() == null) {
-            // 如果request属性中没有用户信息，尝试从session中获取
-            Object userObj = request.getSession().getAttribute("USER_LOGIN_STATE");
-            currentUser = (User) userObj;
-            if (currentUser == null || currentUser.getId() == null) {
-                return null;
-            }
+            return null;
         }
         // 从数据库查询（追求性能的话可以注释，直接走缓存）
         long userId = currentUser.getId();
@@ -198,7 +219,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Override
     public boolean isAdmin(HttpServletRequest request) {
         // 从统一认证拦截器设置的request属性中获取用户信息
-        User user = (User) request.getAttribute("currentUser");
+        User user = (User) request.getAttribute(CURRENT_USER);
         return isAdmin(user);
     }
 
@@ -215,11 +236,11 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     @Override
     public boolean userLogout(HttpServletRequest request) {
-        if (request.getSession().getAttribute(USER_LOGIN_STATE) == null) {
+        if (request.getAttribute(CURRENT_USER) == null) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "未登录");
         }
-        // 移除登录态
-        request.getSession().removeAttribute(USER_LOGIN_STATE);
+        // 无状态模式下服务端不保存登录态，由控制器清除令牌Cookie
+        request.removeAttribute(CURRENT_USER);
         return true;
     }
 
@@ -307,49 +328,46 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     /**
-     * 更新用户积分
+     * 更新用户积分并记录积分流水
+     * 增减在一条 UPDATE 中原子完成（point = point + delta，且变动后不得为负），不做先读后写；
+     * 同一事务内读取变动后的积分，流水在事务提交后批量写入，行锁只持有到事务提交
      *
      * @param userId 用户ID
      * @param points 积分变化值（正数为增加，负数为减少）
-     * @return 是否更新成功
+     * @param changeType 变动类型
+     * @param relatedId 关联业务ID
+     * @param description 变动描述
+     * @return 是否更新成功（扣减后积分为负时返回false）
      */
     @Override
-    public boolean updateUserPoints(Long userId, BigDecimal points) {
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateUserPoints(Long userId, BigDecimal points, PointsChangeTypeEnum changeType,
+                                    Long relatedId, String description) {
         if (userId == null || userId <= 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户ID无效");
         }
-        
-        // 获取用户当前积分
-        User user = this.getById(userId);
-        if (user == null) {
-            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "用户不存在");
+        if (points == null || changeType == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "积分变动参数无效");
         }
         
-        // 计算新积分（确保积分不为负数，处理积分可能为null的情况）
-        BigDecimal currentPoints = user.getPoint() != null ? user.getPoint() : BigDecimal.ZERO;
-        BigDecimal newPoints = currentPoints.add(points);
-        if (newPoints.compareTo(BigDecimal.ZERO) < 0) {
-            newPoints = BigDecimal.ZERO;
+        int affected = this.baseMapper.addPoints(userId, points);
+        if (affected == 0) {
+            // 用户不存在，或扣减后积分不足
+            if (this.baseMapper.selectPointById(userId) == null) {
+                throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "用户不存在");
+            }
+            return false;
         }
-        
-        System.out.println("更新用户积分 - 用户ID: " + userId + 
-                ", 当前积分: " + currentPoints + 
-                ", 积分变化: " + points + 
-                ", 新积分: " + newPoints);
-        
-        // 更新积分
-        User updateUser = new User();
-        updateUser.setId(userId);
-        updateUser.setPoint(newPoints);
-        updateUser.setUpdateTime(new Date());
-        
-        boolean result = this.updateById(updateUser);
-        System.out.println("积分更新结果: " + result);
-        return result;
+        userCache.invalidate(userId);
+
+        BigDecimal pointsAfter = this.baseMapper.selectPointById(userId);
+        pointsRecordService.createPointsRecord(userId, points, pointsAfter, changeType.getValue(),
+                relatedId, description != null ? description : changeType.getText());
+        return true;
     }
 
     /**
-     * 获取用户积分
+     * 获取用户积分（直接读取数据库，不经过实体缓存）
      *
      * @param userId 用户ID
      * @return 用户积分
@@ -360,14 +378,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "用户ID无效");
         }
         
-        User user = this.getById(userId);
-        if (user == null) {
+        BigDecimal points = this.baseMapper.selectPointById(userId);
+        if (points == null) {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "用户不存在");
         }
-        
-        // 处理积分可能为null的情况
-        BigDecimal points = user.getPoint() != null ? user.getPoint() : BigDecimal.ZERO;
-        System.out.println("获取用户积分 - 用户ID: " + userId + ", 积分值: " + points + ", 原始积分: " + user.getPoint());
         return points;
     }
 
@@ -428,4 +442,46 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         return this.updateById(updateUser);
     }
+
+    /**
+     * 按主键查询用户，优先读取实体缓存
+     */
+    @Override
+    public User getById(Serializable id) {
+        return userCache.get(id, key -> super.getById(key));
+    }
+
+    /**
+     * 按主键批量查询用户，只有未命中缓存的主键才查询数据库
+     */
+    @Override
+    public List<User> listByIds(Collection<? extends Serializable> idList) {
+        return userCache.getAll(idList, missing -> super.listByIds(missing), User::getId);
+    }
+
+    /**
+     * 更新用户并失效实体缓存
+     */
+    @Override
+    public boolean updateById(User entity) {
+        boolean updated = super.updateById(entity);
+        userCache.invalidate(entity.getId());
+        if (entity.getUserRole() != null || entity.getUserStatus() != null) {
+            tokenRevocationRegistry.refreshUser(entity.getId());
+        }
+        return updated;
+    }
+
+    /**
+     * 删除用户并失效实体缓存
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        userCache.invalidate(id);
+        if (removed) {
+            tokenRevocationRegistry.refreshUser(Long.valueOf(String.valueOf(id)));
+        }
+        return removed;
+    }
 }
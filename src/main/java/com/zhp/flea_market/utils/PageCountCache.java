@@ -0,0 +1,64 @@
+package com.zhp.flea_market.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分页总数缓存
+ * 以 实体类型 + 归一化查询条件 为键，缓存 COUNT 结果若干秒
+ */
+public class PageCountCache {
+
+    /**
+     * 最大缓存条目数
+     */
+    private static final int MAX_ENTRIES = 10000;
+
+    private static final Map<String, CachedCount> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 获取未过期的缓存总数
+     *
+     * @param key 缓存键
+     * @return 缓存总数，不存在或已过期时返回null
+     */
+    public static Long get(String key) {
+        CachedCount cached = CACHE.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expireAt < System.currentTimeMillis()) {
+            CACHE.remove(key, cached);
+            return null;
+        }
+        return cached.count;
+    }
+
+    /**
+     * 缓存总数
+     *
+     * @param key 缓存键
+     * @param count 总数
+     * @param ttlSeconds 缓存秒数
+     */
+    public static void put(String key, long count, long ttlSeconds) {
+        if (CACHE.size() >= MAX_ENTRIES) {
+            long now = System.currentTimeMillis();
+            CACHE.values().removeIf(cached -> cached.expireAt < now);
+            if (CACHE.size() >= MAX_ENTRIES) {
+                CACHE.clear();
+            }
+        }
+        CACHE.put(key, new CachedCount(count, System.currentTimeMillis() + ttlSeconds * 1000));
+    }
+
+    private static final class CachedCount {
+        private final long count;
+        private final long expireAt;
+
+        private CachedCount(long count, long expireAt) {
+            this.count = count;
+            this.expireAt = expireAt;
+        }
+    }
+}
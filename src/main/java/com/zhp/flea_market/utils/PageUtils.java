@@ -1,14 +1,27 @@
 package com.zhp.flea_market.utils;
 
+import cn.hutool.extra.spring.SpringUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zhp.flea_market.common.ErrorCode;
+import com.zhp.flea_market.exception.BusinessException;
+import com.zhp.flea_market.mapper.TableStatisticsMapper;
+import com.zhp.flea_market.model.enums.CountStrategyEnum;
+import com.zhp.flea_market.model.vo.CursorPageVO;
 import com.zhp.flea_market.model.vo.TradeRecordVO;
 import com.zhp.flea_market.model.entity.TradeRecord;
+import org.apache.commons.lang3.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 import java.util.function.Function;
 
 /**
@@ -16,6 +29,11 @@ import java.util.function.Function;
  */
 public class PageUtils {
 
+    /**
+     * CACHED 策略下总数的默认缓存秒数
+     */
+    public static final long DEFAULT_COUNT_CACHE_SECONDS = 30;
+
     /**
      * 通用分页查询方法
      *
@@ -45,29 +63,218 @@ public class PageUtils {
         return getPageResult(service, page, queryWrapper);
     }
 
+    /**
+     * 通用分页查询方法（可选择总数统计策略）
+     *
+     * @param service 服务类实例
+     * @param page 分页参数
+     * @param queryWrapper 查询条件
+     * @param countStrategy 总数统计策略，为null时精确统计
+     * @param <T> 实体类型
+     * @return 查询结果列表
+     */
+    public static <T> List<T> getPageResult(IService<T> service, Page<T> page, QueryWrapper<T> queryWrapper,
+                                            CountStrategyEnum countStrategy) {
+        return getPageResult(service, page, queryWrapper, countStrategy, DEFAULT_COUNT_CACHE_SECONDS);
+    }
+
+    /**
+     * 通用分页查询方法（可选择总数统计策略）
+     *
+     * @param service 服务类实例
+     * @param page 分页参数
+     * @param queryWrapper 查询条件
+     * @param countStrategy 总数统计策略，为null时精确统计；
+     *                      ESTIMATED 只对无筛选条件且没有逻辑删除字段的表生效，其余情况按 CACHED 处理
+     * @param cacheSeconds CACHED 策略下总数的缓存秒数
+     * @param <T> 实体类型
+     * @return 查询结果列表
+     */
+    public static <T> List<T> getPageResult(IService<T> service, Page<T> page, QueryWrapper<T> queryWrapper,
+                                            CountStrategyEnum countStrategy, long cacheSeconds) {
+        if (countStrategy == null || countStrategy == CountStrategyEnum.EXACT) {
+            return getPageResult(service, page, queryWrapper);
+        }
+
+        switch (countStrategy) {
+            case NONE: {
+                // 不统计总数，只保证前端能判断是否存在下一页
+                page.setSearchCount(false);
+                List<T> records = service.page(page, queryWrapper).getRecords();
+                long offset = (page.getCurrent() - 1) * page.getSize();
+                page.setTotal(offset + records.size() + (records.size() == page.getSize() ? 1 : 0));
+                return records;
+            }
+            case ESTIMATED: {
+                // 表统计信息只反映整表行数（包含已逻辑删除的行），仅在无筛选条件且表没有逻辑删除字段时可用，
+                // 其余情况退化为缓存统计
+                TableInfo tableInfo = TableInfoHelper.getTableInfo(service.getEntityClass());
+                if (!tableInfo.isWithLogicDelete()
+                        && StringUtils.isBlank(queryWrapper.getExpression().getNormal().getSqlSegment())) {
+                    Long estimatedRows = SpringUtil.getBean(TableStatisticsMapper.class)
+                            .selectEstimatedRows(tableInfo.getTableName());
+                    if (estimatedRows != null) {
+                        page.setSearchCount(false);
+                        List<T> records = service.page(page, queryWrapper).getRecords();
+                        page.setTotal(estimatedRows);
+                        return records;
+                    }
+                }
+                return getCachedCountPageResult(service, page, queryWrapper, cacheSeconds);
+            }
+            default:
+                return getCachedCountPageResult(service, page, queryWrapper, cacheSeconds);
+        }
+    }
+
+    /**
+     * 总数按归一化查询条件缓存的分页查询
+     */
+    private static <T> List<T> getCachedCountPageResult(IService<T> service, Page<T> page,
+                                                        QueryWrapper<T> queryWrapper, long cacheSeconds) {
+        String countKey = getCountCacheKey(service, queryWrapper);
+        Long cachedTotal = PageCountCache.get(countKey);
+        if (cachedTotal != null) {
+            page.setSearchCount(false);
+            List<T> records = service.page(page, queryWrapper).getRecords();
+            page.setTotal(cachedTotal);
+            return records;
+        }
+
+        List<T> records = service.page(page, queryWrapper).getRecords();
+        PageCountCache.put(countKey, page.getTotal(), cacheSeconds);
+        return records;
+    }
+
+    /**
+     * 生成总数缓存键：实体类型 + WHERE 条件片段 + 按参数名排序的参数值（不含排序，排序不影响总数）
+     */
+    private static <T> String getCountCacheKey(IService<T> service, QueryWrapper<T> queryWrapper) {
+        StringBuilder key = new StringBuilder(service.getEntityClass().getName())
+                .append('|')
+                .append(StringUtils.trimToEmpty(queryWrapper.getExpression().getNormal().getSqlSegment()));
+        new TreeMap<>(queryWrapper.getParamNameValuePairs())
+                .forEach((name, value) -> key.append('|').append(name).append('=').append(value));
+        return key.toString();
+    }
+
     /**
      * TradeRecord专用分页查询方法，可直接转换为TradeRecordVO
      *
      * @param service TradeRecordService实例
      * @param page 分页参数
      * @param queryWrapper 查询条件
-     * @param converter 转换函数
+     * @param converter 整页转换函数（便于批量预取关联数据）
      * @return TradeRecordVO分页结果
      */
     public static Page<TradeRecordVO> getTradeRecordPageResult(
             IService<TradeRecord> service, 
             Page<TradeRecord> page, 
             QueryWrapper<TradeRecord> queryWrapper,
-            Function<TradeRecord, TradeRecordVO> converter) {
+            Function<List<TradeRecord>, List<TradeRecordVO>> converter) {
         
         Page<TradeRecord> resultPage = service.page(page, queryWrapper);
         
         // 转换为VO对象
         Page<TradeRecordVO> voPage = new Page<>(resultPage.getCurrent(), resultPage.getSize(), resultPage.getTotal());
-        voPage.setRecords(resultPage.getRecords().stream()
-                .map(converter)
-                .collect(Collectors.toList()));
+        voPage.setRecords(converter.apply(resultPage.getRecords()));
                 
         return voPage;
     }
-}
\ No newline at end of file
+
+    /**
+     * 通用游标分页查询方法（按 时间列, id 降序的 keyset 分页）
+     * 不执行 COUNT，多取一条判断是否还有下一页，任意深度的翻页代价相同
+     *
+     * @param service 服务类实例
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size 每页大小
+     * @param timeColumn 排序时间列（如 create_time、trade_time）
+     * @param timeGetter 排序时间获取函数
+     * @param idGetter 主键获取函数
+     * @param queryBuilder 查询条件构建器（不要设置排序）
+     * @param <T> 实体类型
+     * @return 游标分页结果
+     */
+    public static <T> CursorPageVO<T> getCursorPageResult(IService<T> service, String cursor, long size,
+                                                          String timeColumn, Function<T, Date> timeGetter,
+                                                          Function<T, Long> idGetter,
+                                                          Consumer<QueryWrapper<T>> queryBuilder) {
+        QueryWrapper<T> queryWrapper = new QueryWrapper<>();
+        queryBuilder.accept(queryWrapper);
+
+        // 从游标位置之后开始查询
+        long[] position = decodeCursor(cursor);
+        if (position != null) {
+            Date cursorTime = new Date(position[0]);
+            long cursorId = position[1];
+            queryWrapper.and(wrapper -> wrapper
+                    .lt(timeColumn, cursorTime)
+                    .or(inner -> inner.eq(timeColumn, cursorTime).lt("id", cursorId))
+            );
+        }
+        queryWrapper.orderByDesc(timeColumn);
+        queryWrapper.orderByDesc("id");
+        queryWrapper.last("LIMIT " + (size + 1));
+
+        List<T> rows = service.list(queryWrapper);
+        return buildCursorPage(rows, size, timeGetter, idGetter);
+    }
+
+    /**
+     * 根据多取一条的查询结果构建游标分页结果
+     *
+     * @param rows 查询结果（最多 size + 1 条）
+     * @param size 每页大小
+     * @param timeGetter 排序时间获取函数
+     * @param idGetter 主键获取函数
+     * @param <T> 数据类型
+     * @return 游标分页结果
+     */
+    public static <T> CursorPageVO<T> buildCursorPage(List<T> rows, long size, Function<T, Date> timeGetter,
+                                                      Function<T, Long> idGetter) {
+        CursorPageVO<T> cursorPage = new CursorPageVO<>();
+        cursorPage.setSize(size);
+        boolean hasMore = rows.size() > size;
+        List<T> records = hasMore ? new ArrayList<>(rows.subList(0, (int) size)) : rows;
+        cursorPage.setRecords(records);
+        cursorPage.setHasMore(hasMore);
+        if (hasMore) {
+            T last = records.get(records.size() - 1);
+            cursorPage.setNextCursor(encodeCursor(timeGetter.apply(last), idGetter.apply(last)));
+        }
+        return cursorPage;
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param time 排序时间
+     * @param id 主键
+     * @return 不透明游标
+     */
+    public static String encodeCursor(Date time, Long id) {
+        long millis = time != null ? time.getTime() : 0L;
+        String raw = millis + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor 不透明游标
+     * @return [排序时间毫秒, 主键]，游标为空时返回null
+     */
+    public static long[] decodeCursor(String cursor) {
+        if (StringUtils.isBlank(cursor)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new long[]{Long.parseLong(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1))};
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "分页游标无效");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.zhp.flea_market.utils;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 关联数据预取工具类
+ * 转换器声明需要的外键字段（如 buyerId -> User、productId -> Product），
+ * 每种关联实体按整页去重后只发起一次 IN 查询，返回 ID -> 实体 的查找表
+ */
+public class PrefetchUtils {
+
+    /**
+     * 按外键批量预取关联实体
+     *
+     * @param service 关联实体的服务类实例
+     * @param idGetter 关联实体的主键获取函数
+     * @param rows 当前页数据
+     * @param foreignKeys 需要解析的外键字段
+     * @param <S> 当前页数据类型
+     * @param <E> 关联实体类型
+     * @return 关联实体查找表，不会返回null
+     */
+    @SafeVarargs
+    public static <S, E> Map<Long, E> prefetch(IService<E> service, Function<E, Long> idGetter,
+                                               Collection<S> rows, Function<S, Long>... foreignKeys) {
+        if (rows == null || rows.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (S row : rows) {
+            if (row == null) {
+                continue;
+            }
+            for (Function<S, Long> foreignKey : foreignKeys) {
+                Long id = foreignKey.apply(row);
+                if (id != null && id > 0) {
+                    ids.add(id);
+                }
+            }
+        }
+
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return service.listByIds(ids).stream()
+                .collect(Collectors.toMap(idGetter, Function.identity(), (a, b) -> a));
+    }
+}
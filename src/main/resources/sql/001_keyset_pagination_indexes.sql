@@ -0,0 +1,16 @@
+-- 游标（keyset）分页所需的复合索引
+-- 排序键为 (create_time, id) 或 (trade_time, id)，等值条件列在前，逻辑删除列紧随其后
+
+-- 二手物品检索：status = 1 AND deleted = 0 ORDER BY create_time DESC, id DESC
+ALTER TABLE product
+    ADD INDEX idx_product_status_deleted_create_time (status, deleted, create_time, id);
+
+-- 买家 / 卖家订单列表
+ALTER TABLE market_order
+    ADD INDEX idx_order_buyer_deleted_create_time (buyer_id, deleted, create_time, id),
+    ADD INDEX idx_order_seller_deleted_create_time (seller_id, deleted, create_time, id);
+
+-- 买家 / 卖家交易记录列表
+ALTER TABLE trade_record
+    ADD INDEX idx_trade_record_buyer_deleted_trade_time (buyer_id, deleted, trade_time, id),
+    ADD INDEX idx_trade_record_seller_deleted_trade_time (seller_id, deleted, trade_time, id);
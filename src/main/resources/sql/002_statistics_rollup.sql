@@ -0,0 +1,31 @@
+-- 统计汇总表：按日 / 按月的分类维度和用户维度计数器
+-- period_type 取值 day / month，period_start 为当日或当月第一天
+-- 由订单完成、二手物品状态变更在事务提交后增量累加，并由重建任务按月全量校正
+
+CREATE TABLE IF NOT EXISTS stat_category_rollup
+(
+    period_type   VARCHAR(8)     NOT NULL COMMENT '统计粒度：day/month',
+    period_start  DATE           NOT NULL COMMENT '统计周期起始日期',
+    category_id   BIGINT         NOT NULL COMMENT '分类ID，未分类为0',
+    trade_count   BIGINT         NOT NULL DEFAULT 0 COMMENT '完成订单数',
+    trade_amount  DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT '完成订单金额',
+    on_sale_count BIGINT         NOT NULL DEFAULT 0 COMMENT '该周期发布且当前在售的物品数',
+    sold_count    BIGINT         NOT NULL DEFAULT 0 COMMENT '该周期售出的物品数',
+    update_time   DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (period_type, period_start, category_id)
+) COMMENT '分类维度统计汇总';
+
+CREATE TABLE IF NOT EXISTS stat_user_rollup
+(
+    period_type  VARCHAR(8)     NOT NULL COMMENT '统计粒度：day/month',
+    period_start DATE           NOT NULL COMMENT '统计周期起始日期',
+    user_id      BIGINT         NOT NULL COMMENT '买家用户ID',
+    trade_count  BIGINT         NOT NULL DEFAULT 0 COMMENT '完成订单数',
+    trade_amount DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT '完成订单金额',
+    update_time  DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (period_type, period_start, user_id)
+) COMMENT '用户维度统计汇总';
+
+-- 重建任务按完成时间扫描订单
+ALTER TABLE market_order
+    ADD INDEX idx_order_status_finish_time (status, deleted, finish_time);
@@ -0,0 +1,29 @@
+-- 交易记录快照：成交时的物品名称、买卖双方名称、金额和支付方式随记录落库
+-- 历史列表和交易总额只读 trade_record 单表，不再逐行回查订单、物品和用户
+
+ALTER TABLE trade_record
+    ADD COLUMN product_name        VARCHAR(256)   NULL COMMENT '成交时的二手物品名称' AFTER product_id,
+    ADD COLUMN buyer_name          VARCHAR(256)   NULL COMMENT '成交时的买家名称' AFTER buyer_id,
+    ADD COLUMN seller_name         VARCHAR(256)   NULL COMMENT '成交时的卖家名称' AFTER seller_id,
+    ADD COLUMN amount              DECIMAL(10, 2) NULL COMMENT '成交金额',
+    ADD COLUMN payment_method      TINYINT        NULL COMMENT '支付方式 (0-现金, 1-微信, 2-积分兑换, 3-物品交换)',
+    ADD COLUMN payment_method_desc VARCHAR(32)    NULL COMMENT '支付方式描述',
+    ADD COLUMN remark              VARCHAR(512)   NULL COMMENT '交易备注';
+
+-- 回填已有记录：取当前物品价格和用户名称作为快照（物品、用户已逻辑删除的同样回填）
+UPDATE trade_record t
+    LEFT JOIN product p ON p.id = t.product_id
+    LEFT JOIN user b ON b.id = t.buyer_id
+    LEFT JOIN user s ON s.id = t.seller_id
+SET t.product_name        = p.product_name,
+    t.buyer_name          = b.user_name,
+    t.seller_name         = s.user_name,
+    t.amount              = p.price,
+    t.payment_method      = p.payment_method,
+    t.payment_method_desc = CASE p.payment_method
+                                WHEN 0 THEN '现金支付'
+                                WHEN 1 THEN '微信支付'
+                                WHEN 2 THEN '积分兑换'
+                                WHEN 3 THEN '物品交换'
+                                ELSE '未知支付方式' END
+WHERE t.amount IS NULL;
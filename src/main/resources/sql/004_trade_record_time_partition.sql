@@ -0,0 +1,22 @@
+-- 交易记录按交易时间分区，配合交易总额 / 交易数量的区间聚合查询
+-- 聚合条件为 deleted = 0 AND trade_time 区间（可选 payment_method <> 2），按年裁剪分区后只扫描覆盖索引
+
+-- 分区键必须出现在主键中且不能为空；分区表不支持外键，执行前需确认 trade_record 上没有外键约束
+ALTER TABLE trade_record
+    MODIFY COLUMN trade_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '交易时间',
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, trade_time);
+
+-- 覆盖 SUM(amount) / COUNT(*) 的区间聚合，无需回表
+ALTER TABLE trade_record
+    ADD INDEX idx_trade_record_trade_time_agg (trade_time, deleted, payment_method, amount);
+
+-- 按年分区，p_max 兜底；新年度到来前用 REORGANIZE PARTITION p_max 拆出新的年度分区
+ALTER TABLE trade_record
+    PARTITION BY RANGE COLUMNS (trade_time) (
+        PARTITION p2024 VALUES LESS THAN ('2025-01-01'),
+        PARTITION p2025 VALUES LESS THAN ('2026-01-01'),
+        PARTITION p2026 VALUES LESS THAN ('2027-01-01'),
+        PARTITION p2027 VALUES LESS THAN ('2028-01-01'),
+        PARTITION p_max VALUES LESS THAN (MAXVALUE)
+    );
@@ -0,0 +1,7 @@
+-- 积分流水：记录每次积分变动的类型，按关联业务ID + 类型查询流水
+ALTER TABLE points_record
+    ADD COLUMN IF NOT EXISTS change_type TINYINT NULL COMMENT '变动类型 (1-积分兑换支付, 2-取消订单返还, 3-订单完成奖励, 4-管理员调整)' AFTER points_after,
+    ADD INDEX idx_points_record_related_type (related_id, change_type);
+
+-- 积分余额原子增减依赖 point 非空
+UPDATE user SET point = 0 WHERE point IS NULL;
@@ -0,0 +1,3 @@
+-- 用户积分流水列表：user_id = ? AND deleted = 0 ORDER BY create_time DESC, id DESC
+ALTER TABLE points_record
+    ADD INDEX idx_points_record_user_deleted_create_time (user_id, deleted, create_time, id);
@@ -0,0 +1,18 @@
+-- 事务发件箱：业务事务内写入待执行的副作用事件，由后台分发任务异步执行并重试
+-- idempotency_key 唯一，同一副作用重复写入时忽略；事件处理与状态更新在同一事务内提交
+
+CREATE TABLE IF NOT EXISTS outbox_event
+(
+    id                BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '事件ID',
+    event_type        VARCHAR(64)  NOT NULL COMMENT '事件类型',
+    idempotency_key   VARCHAR(128) NOT NULL COMMENT '幂等键',
+    payload           TEXT         NULL COMMENT '事件内容（JSON）',
+    status            TINYINT      NOT NULL DEFAULT 0 COMMENT '状态 (0-待处理, 1-已完成, 2-已放弃)',
+    attempts          INT          NOT NULL DEFAULT 0 COMMENT '已失败次数',
+    next_attempt_time DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次执行时间',
+    last_error        VARCHAR(512) NULL COMMENT '最近一次失败原因',
+    create_time       DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time       DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_outbox_event_idempotency_key (idempotency_key),
+    KEY idx_outbox_event_status_next_attempt (status, next_attempt_time, id)
+) COMMENT '事务发件箱';
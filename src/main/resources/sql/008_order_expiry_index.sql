@@ -0,0 +1,3 @@
+-- 超时未支付订单扫描：status = 0 AND deleted = 0 AND create_time < ? ORDER BY create_time, id
+ALTER TABLE market_order
+    ADD INDEX idx_order_status_deleted_create_time (status, deleted, create_time, id);
@@ -0,0 +1,3 @@
+-- 购物车列表与校验：shopping_cart 按用户取未删除项并按加入时间倒序，再按 product_id 关联物品
+ALTER TABLE shopping_cart
+    ADD INDEX idx_shopping_cart_user_deleted_create_time (user_id, deleted, create_time, id, product_id);
@@ -0,0 +1,10 @@
+-- 购物车按 (user_id, product_id) 唯一，加入购物车改为 INSERT ... ON DUPLICATE KEY UPDATE
+-- 逻辑删除后再次加入会产生重复行，先保留每组中未删除且ID最大的一行
+DELETE sc FROM shopping_cart sc
+JOIN shopping_cart keep
+    ON keep.user_id = sc.user_id
+    AND keep.product_id = sc.product_id
+    AND (keep.deleted < sc.deleted OR (keep.deleted = sc.deleted AND keep.id > sc.id));
+
+ALTER TABLE shopping_cart
+    ADD UNIQUE KEY uk_shopping_cart_user_product (user_id, product_id);
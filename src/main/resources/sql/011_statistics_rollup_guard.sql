@@ -0,0 +1,13 @@
+-- 统计汇总月份守护行：增量累加与按月重建互斥
+-- 业务事务提交前对涉及月份的守护行加共享锁并记下 epoch，重建时加排他锁并把 epoch 加一；
+-- 事务提交后累加增量时 epoch 已变化，说明重建已读到该业务数据，跳过增量避免重复计数
+-- dirty = 1 表示该月有增量累加失败，由定时任务重建
+
+CREATE TABLE IF NOT EXISTS stat_rollup_guard
+(
+    period_start DATE     NOT NULL COMMENT '月份第一天',
+    epoch        BIGINT   NOT NULL DEFAULT 0 COMMENT '重建次数，每次重建加一',
+    dirty        TINYINT  NOT NULL DEFAULT 0 COMMENT '是否有增量累加失败需要重建',
+    update_time  DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (period_start)
+) COMMENT '统计汇总月份守护行';
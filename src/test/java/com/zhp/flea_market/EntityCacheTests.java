@@ -0,0 +1,60 @@
+package com.zhp.flea_market;
+
+import com.zhp.flea_market.common.EntityCache;
+import com.zhp.flea_market.model.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 实体缓存批量加载测试（不依赖数据库）
+ */
+class EntityCacheTests {
+
+    private final EntityCache<Product> cache = new EntityCache<>("test", true, 100, 300, Product::new);
+
+    @Test
+    void bulkLoadIsCachedWhenNothingIsInvalidated() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getAll(List.of(1L, 2L), missing -> {
+            loads.incrementAndGet();
+            return missing.stream().map(id -> product(id, 1)).toList();
+        }, Product::getId);
+        List<Product> cached = cache.getAll(List.of(1L, 2L), missing -> {
+            loads.incrementAndGet();
+            return List.of();
+        }, Product::getId);
+
+        assertEquals(1, loads.get());
+        assertEquals(2, cached.size());
+    }
+
+    @Test
+    void bulkLoadOverlappingAnInvalidationIsNotCached() {
+        // 加载读到旧状态后、写入缓存前物品被更新并失效
+        List<Product> loaded = cache.getAll(List.of(1L, 2L), missing -> {
+            List<Product> stale = missing.stream().map(id -> product(id, 1)).toList();
+            cache.invalidate(1L);
+            return stale;
+        }, Product::getId);
+        assertEquals(2, loaded.size());
+
+        List<Product> reloaded = cache.getAll(List.of(1L, 2L),
+                missing -> missing.stream().map(id -> product(id, 3)).toList(), Product::getId);
+
+        // 被失效的主键重新加载到新状态，未失效的主键仍命中缓存
+        assertEquals(3, reloaded.get(0).getStatus());
+        assertEquals(1, reloaded.get(1).getStatus());
+    }
+
+    private static Product product(Long id, int status) {
+        Product product = new Product();
+        product.setId(id);
+        product.setStatus(status);
+        return product;
+    }
+}
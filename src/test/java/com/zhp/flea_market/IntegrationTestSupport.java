@@ -0,0 +1,136 @@
+package com.zhp.flea_market;
+
+import com.zhp.flea_market.constant.UserConstant;
+import com.zhp.flea_market.mapper.ProductMapper;
+import com.zhp.flea_market.mapper.UserMapper;
+import com.zhp.flea_market.model.entity.Product;
+import com.zhp.flea_market.model.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集成测试基类
+ * 与 contextLoads 一样连接 application.yml 中配置的数据库；
+ * 测试数据通过 create* 方法创建，每个测试结束后按用户ID和物品ID物理删除
+ */
+@SpringBootTest
+public abstract class IntegrationTestSupport {
+
+    @Autowired
+    protected UserMapper userMapper;
+
+    @Autowired
+    protected ProductMapper productMapper;
+
+    @Autowired
+    protected NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final List<Long> createdUserIds = new ArrayList<>();
+
+    private final List<Long> createdProductIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUpTestData() {
+        if (!createdUserIds.isEmpty()) {
+            MapSqlParameterSource userParams = new MapSqlParameterSource("ids", createdUserIds);
+            jdbcTemplate.update("DELETE FROM market_order WHERE buyer_id IN (:ids) OR seller_id IN (:ids)", userParams);
+            jdbcTemplate.update("DELETE FROM points_record WHERE user_id IN (:ids)", userParams);
+            jdbcTemplate.update("DELETE FROM shopping_cart WHERE user_id IN (:ids)", userParams);
+        }
+        if (!createdProductIds.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM product WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", createdProductIds));
+        }
+        if (!createdUserIds.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM user WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", createdUserIds));
+        }
+        createdUserIds.clear();
+        createdProductIds.clear();
+    }
+
+    /**
+     * 创建正常状态的普通用户
+     */
+    protected User createUser(BigDecimal points) {
+        User user = new User();
+        user.setUserAccount("it_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16));
+        user.setUserPassword("test");
+        user.setUserName(user.getUserAccount());
+        user.setUserRole(UserConstant.DEFAULT_ROLE);
+        user.setUserStatus(1);
+        user.setPoint(points);
+        userMapper.insert(user);
+        createdUserIds.add(user.getId());
+        return user;
+    }
+
+    /**
+     * 直接写库创建二手物品（不经过服务层，避免产生检索索引和统计汇总副作用）
+     */
+    protected Product createProduct(Long sellerId, int status, int paymentMethod, BigDecimal price) {
+        Product product = new Product();
+        product.setProductName("集成测试物品");
+        product.setDescription("集成测试物品");
+        product.setPrice(price);
+        product.setStatus(status);
+        product.setPaymentMethod(paymentMethod);
+        product.setUserId(sellerId);
+        productMapper.insert(product);
+        createdProductIds.add(product.getId());
+        return product;
+    }
+
+    /**
+     * 模拟已登录用户的请求（与认证拦截器一样在请求属性中放入当前用户）
+     */
+    protected MockHttpServletRequest loginRequest(User user) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(UserConstant.CURRENT_USER, user);
+        return request;
+    }
+
+    protected Integer productStatus(Long productId) {
+        return productMapper.selectById(productId).getStatus();
+    }
+
+    /**
+     * 多个线程在同一时刻开始执行任务，返回各任务的结果或异常
+     */
+    protected <T> List<Future<T>> runConcurrently(List<Callable<T>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            executor.shutdown();
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("并发任务未在60秒内完成");
+            }
+            return futures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.zhp.flea_market;
+
+import com.zhp.flea_market.common.ErrorCode;
+import com.zhp.flea_market.exception.BusinessException;
+import com.zhp.flea_market.model.entity.Product;
+import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * 并发下单测试
+ */
+class OrderCreateConcurrencyTests extends IntegrationTestSupport {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void twoBuyersRacingOnOneProductCreateExactlyOneOrder() throws Exception {
+        User seller = createUser(BigDecimal.ZERO);
+        User firstBuyer = createUser(BigDecimal.ZERO);
+        User secondBuyer = createUser(BigDecimal.ZERO);
+        Product product = createProduct(seller.getId(), 1, 0, new BigDecimal("10"));
+
+        List<Callable<Long>> tasks = List.of(
+                () -> orderService.createOrder(product.getId(), loginRequest(firstBuyer)),
+                () -> orderService.createOrder(product.getId(), loginRequest(secondBuyer)));
+
+        List<Long> orderIds = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<Long> future : runConcurrently(tasks)) {
+            try {
+                orderIds.add(future.get());
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+
+        assertEquals(1, orderIds.size());
+        assertEquals(1, failures.size());
+        BusinessException conflict = assertInstanceOf(BusinessException.class, failures.get(0));
+        assertEquals(ErrorCode.CONFLICT_ERROR.getCode(), conflict.getCode());
+
+        assertEquals(3, productStatus(product.getId()));
+        Integer orderCount = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM market_order WHERE product_id = :productId",
+                new MapSqlParameterSource("productId", product.getId()), Integer.class);
+        assertEquals(1, orderCount);
+    }
+}
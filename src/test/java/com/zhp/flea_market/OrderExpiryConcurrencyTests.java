@@ -0,0 +1,109 @@
+package com.zhp.flea_market;
+
+import com.zhp.flea_market.exception.BusinessException;
+import com.zhp.flea_market.mapper.OrderMapper;
+import com.zhp.flea_market.model.entity.Order;
+import com.zhp.flea_market.model.entity.Product;
+import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.service.OrderService;
+import com.zhp.flea_market.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 超时关闭订单与支付并发测试
+ */
+class OrderExpiryConcurrencyTests extends IntegrationTestSupport {
+
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Test
+    void expiryAndPaymentRacingOnOneOrderLeaveAConsistentState() throws Exception {
+        User seller = createUser(BigDecimal.ZERO);
+        for (int round = 0; round < ROUNDS; round++) {
+            User buyer = createUser(new BigDecimal("100"));
+            Product product = createProduct(seller.getId(), 3, 2, new BigDecimal("30"));
+            Order order = createExpiredUnpaidOrder(product, buyer);
+
+            List<Callable<Object>> tasks = List.of(
+                    () -> orderService.expireUnpaidOrders(),
+                    () -> orderService.payOrder(order.getId(), loginRequest(buyer)));
+            List<Future<Object>> futures = runConcurrently(tasks);
+            futures.get(0).get();
+            boolean paid;
+            try {
+                paid = Boolean.TRUE.equals(futures.get(1).get());
+            } catch (ExecutionException e) {
+                // 超时关闭先生效时支付因订单状态已变化而失败
+                assertInstanceOf(BusinessException.class, e.getCause());
+                paid = false;
+            }
+
+            Integer orderStatus = orderMapper.selectById(order.getId()).getStatus();
+            BigDecimal points = userService.getUserPoints(buyer.getId());
+            if (paid) {
+                // 支付先生效：订单不会被关闭，物品保持抢占，积分已扣除
+                assertEquals(1, orderStatus);
+                assertEquals(3, productStatus(product.getId()));
+                assertEquals(0, new BigDecimal("70").compareTo(points));
+            } else {
+                // 超时关闭先生效：订单取消，物品重新上架，积分未扣除
+                assertEquals(3, orderStatus);
+                assertEquals(1, productStatus(product.getId()));
+                assertEquals(0, new BigDecimal("100").compareTo(points));
+            }
+        }
+    }
+
+    @Test
+    void expiryCancelsTheWholeBatchAndReleasesItsProducts() {
+        User seller = createUser(BigDecimal.ZERO);
+        User buyer = createUser(BigDecimal.ZERO);
+        Product first = createProduct(seller.getId(), 3, 0, new BigDecimal("10"));
+        Product second = createProduct(seller.getId(), 3, 0, new BigDecimal("20"));
+        Order firstOrder = createExpiredUnpaidOrder(first, buyer);
+        Order secondOrder = createExpiredUnpaidOrder(second, buyer);
+
+        assertTrue(orderService.expireUnpaidOrders() >= 2);
+
+        assertEquals(3, orderMapper.selectById(firstOrder.getId()).getStatus());
+        assertEquals(3, orderMapper.selectById(secondOrder.getId()).getStatus());
+        assertEquals(1, productStatus(first.getId()));
+        assertEquals(1, productStatus(second.getId()));
+    }
+
+    /**
+     * 创建一笔创建时间早于超时时限的待支付订单
+     */
+    private Order createExpiredUnpaidOrder(Product product, User buyer) {
+        Order order = new Order();
+        order.setProductId(product.getId());
+        order.setBuyerId(buyer.getId());
+        order.setSellerId(product.getUserId());
+        order.setStatus(0);
+        orderMapper.insert(order);
+        jdbcTemplate.update("UPDATE market_order SET create_time = NOW() - INTERVAL 1 DAY WHERE id = :id",
+                new MapSqlParameterSource("id", order.getId()));
+        return order;
+    }
+}
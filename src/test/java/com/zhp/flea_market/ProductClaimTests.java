@@ -0,0 +1,86 @@
+package com.zhp.flea_market;
+
+import com.zhp.flea_market.model.entity.Product;
+import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 批量抢占二手物品测试
+ */
+class ProductClaimTests extends IntegrationTestSupport {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void claimProductsClaimsAllWhenEveryProductIsOnSale() {
+        User seller = createUser(BigDecimal.ZERO);
+        Product first = createProduct(seller.getId(), 1, 0, new BigDecimal("10"));
+        Product second = createProduct(seller.getId(), 1, 0, new BigDecimal("20"));
+
+        List<Long> claimed = transactionTemplate.execute(status ->
+                productService.claimProducts(List.of(first.getId(), second.getId())));
+
+        assertEquals(List.of(first.getId(), second.getId()), claimed);
+        assertEquals(3, productStatus(first.getId()));
+        assertEquals(3, productStatus(second.getId()));
+    }
+
+    @Test
+    void claimProductsFallsBackToPerItemClaimWhenSomeAreUnavailable() {
+        User seller = createUser(BigDecimal.ZERO);
+        Product onSale = createProduct(seller.getId(), 1, 0, new BigDecimal("10"));
+        Product pending = createProduct(seller.getId(), 0, 0, new BigDecimal("20"));
+        Product sold = createProduct(seller.getId(), 3, 0, new BigDecimal("30"));
+        Product anotherOnSale = createProduct(seller.getId(), 1, 0, new BigDecimal("40"));
+
+        List<Long> claimed = transactionTemplate.execute(status -> productService.claimProducts(
+                List.of(onSale.getId(), pending.getId(), sold.getId(), anotherOnSale.getId())));
+
+        // 整批更新影响行数不一致，回滚到保存点后逐个抢占，只有在售物品成功，其余物品状态不变
+        assertEquals(List.of(onSale.getId(), anotherOnSale.getId()), claimed);
+        assertEquals(3, productStatus(onSale.getId()));
+        assertEquals(0, productStatus(pending.getId()));
+        assertEquals(3, productStatus(sold.getId()));
+        assertEquals(3, productStatus(anotherOnSale.getId()));
+    }
+
+    @Test
+    void claimProductsIsUndoneWhenTheCallerRollsBack() {
+        User seller = createUser(BigDecimal.ZERO);
+        Product onSale = createProduct(seller.getId(), 1, 0, new BigDecimal("10"));
+        Product sold = createProduct(seller.getId(), 3, 0, new BigDecimal("20"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> claimed = productService.claimProducts(List.of(onSale.getId(), sold.getId()));
+            assertEquals(List.of(onSale.getId()), claimed);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(1, productStatus(onSale.getId()));
+        assertEquals(3, productStatus(sold.getId()));
+    }
+
+    @Test
+    void claimProductsRequiresAnExistingTransaction() {
+        User seller = createUser(BigDecimal.ZERO);
+        Product onSale = createProduct(seller.getId(), 1, 0, new BigDecimal("10"));
+
+        assertThrows(IllegalTransactionStateException.class,
+                () -> productService.claimProducts(List.of(onSale.getId())));
+        assertEquals(1, productStatus(onSale.getId()));
+    }
+}
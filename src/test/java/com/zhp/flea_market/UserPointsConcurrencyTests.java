@@ -0,0 +1,102 @@
+package com.zhp.flea_market;
+
+import com.zhp.flea_market.model.entity.User;
+import com.zhp.flea_market.model.enums.PointsChangeTypeEnum;
+import com.zhp.flea_market.service.PointsRecordService;
+import com.zhp.flea_market.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 用户积分并发变动测试
+ */
+class UserPointsConcurrencyTests extends IntegrationTestSupport {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PointsRecordService pointsRecordService;
+
+    @Test
+    void concurrentDeltasAreAllAppliedAndRecorded() throws Exception {
+        User user = createUser(new BigDecimal("100"));
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tasks.add(() -> userService.updateUserPoints(user.getId(), new BigDecimal("5"),
+                    PointsChangeTypeEnum.ADMIN_ADJUST, null, null));
+            tasks.add(() -> userService.updateUserPoints(user.getId(), new BigDecimal("-3"),
+                    PointsChangeTypeEnum.ADMIN_ADJUST, null, null));
+        }
+
+        for (Future<Boolean> future : runConcurrently(tasks)) {
+            assertEquals(Boolean.TRUE, future.get());
+        }
+
+        // 10 * 5 - 10 * 3 = 20
+        assertAmountEquals("120", userService.getUserPoints(user.getId()));
+        pointsRecordService.flushPendingRecords();
+        assertEquals(20, ledgerCount(user.getId()));
+        assertAmountEquals("20", ledgerSum(user.getId()));
+    }
+
+    @Test
+    void concurrentDeductionsNeverOverdrawTheBalance() throws Exception {
+        User user = createUser(new BigDecimal("10"));
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(() -> userService.updateUserPoints(user.getId(), new BigDecimal("-3"),
+                    PointsChangeTypeEnum.ADMIN_ADJUST, null, null));
+        }
+
+        int succeeded = 0;
+        for (Future<Boolean> future : runConcurrently(tasks)) {
+            if (future.get()) {
+                succeeded++;
+            }
+        }
+
+        // 余额 10 最多只够扣减 3 次，其余扣减被拒绝且不写流水
+        assertEquals(3, succeeded);
+        assertAmountEquals("1", userService.getUserPoints(user.getId()));
+        pointsRecordService.flushPendingRecords();
+        assertEquals(3, ledgerCount(user.getId()));
+        assertAmountEquals("-9", ledgerSum(user.getId()));
+    }
+
+    @Test
+    void deductionBelowZeroIsRejectedWithoutLedgerEntry() {
+        User user = createUser(new BigDecimal("5"));
+
+        assertFalse(userService.updateUserPoints(user.getId(), new BigDecimal("-10"),
+                PointsChangeTypeEnum.ADMIN_ADJUST, null, null));
+
+        assertAmountEquals("5", userService.getUserPoints(user.getId()));
+        pointsRecordService.flushPendingRecords();
+        assertEquals(0, ledgerCount(user.getId()));
+    }
+
+    private int ledgerCount(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM points_record WHERE user_id = :userId",
+                new MapSqlParameterSource("userId", userId), Integer.class);
+    }
+
+    private BigDecimal ledgerSum(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(points_change), 0) FROM points_record WHERE user_id = :userId",
+                new MapSqlParameterSource("userId", userId), BigDecimal.class);
+    }
+
+    private static void assertAmountEquals(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+}